@@ -37,7 +37,12 @@ import com.jroossien.boxx.nms.NMS;
 import com.jroossien.boxx.nms.NMSVersion;
 import com.jroossien.boxx.util.Parse;
 import com.jroossien.boxx.util.cuboid.Cuboid;
+import com.jroossien.boxx.util.cuboid.RegionTracker;
 import com.jroossien.boxx.util.cuboid.SelectionManager;
+import com.jroossien.boxx.util.cuboid.SelectionRenderer;
+import com.jroossien.boxx.util.cuboid.edit.EditScheduler;
+import com.jroossien.boxx.util.cuboid.scan.CuboidScanner;
+import com.jroossien.boxx.util.cuboid.scan.MaterialTracker;
 import com.jroossien.boxx.util.entity.EntityTag;
 import com.jroossien.boxx.util.item.GlowEnchant;
 import com.jroossien.boxx.util.item.ItemTag;
@@ -59,7 +64,11 @@ public class Boxx extends JavaPlugin {
     private Language language = null;
 
     private SelectionManager sm;
+    private SelectionRenderer renderer;
     private InputManager im;
+    private EditScheduler editor;
+    private RegionTracker regions;
+    private MaterialTracker materials;
 
     private PluginCfg cfg;
 
@@ -69,6 +78,13 @@ public class Boxx extends JavaPlugin {
     public void onDisable() {
         CmdRegistration.unregister(this);
         GlowEnchant.unregister();
+        if (editor != null) {
+            editor.cancelAll();
+        }
+        if (sm != null) {
+            sm.saveAll();
+        }
+        CuboidScanner.shutdown();
         instance = null;
         log("disabled");
     }
@@ -103,8 +119,15 @@ public class Boxx extends JavaPlugin {
         ItemTag.registerDefaults();
         EntityTag.registerDefaults();
 
-        sm = new SelectionManager();
+        sm = new SelectionManager(this, cfg.selection__persist ? new File(getDataFolder(), "selections") : null, cfg.selection__idleMinutes, cfg.selection__maxRadius);
+        renderer = new SelectionRenderer(this, sm, cfg.selection__particlesPerTick, cfg.selection__renderDistance, cfg.selection__renderInterval);
         im = new InputManager(this);
+        editor = new EditScheduler(this, cfg.edit__msPerTick);
+        if (cfg.edit__bulkWriter) {
+            editor.setWriter(NMS.get().createBulkWriter());
+        }
+        regions = new RegionTracker();
+        materials = new MaterialTracker();
 
         registerCommands();
         registerListeners();
@@ -124,6 +147,10 @@ public class Boxx extends JavaPlugin {
     private void registerListeners() {
         getServer().getPluginManager().registerEvents(new Menu.Events(), this);
         getServer().getPluginManager().registerEvents(sm.getListener(), this);
+        getServer().getPluginManager().registerEvents(renderer, this);
+        getServer().getPluginManager().registerEvents(regions, this);
+        getServer().getPluginManager().registerEvents(materials, this);
+        getServer().getPluginManager().registerEvents(new Cuboid.WorldListener(), this);
     }
 
     public boolean setupLanguage() {
@@ -200,6 +227,15 @@ public class Boxx extends JavaPlugin {
         return sm;
     }
 
+    /**
+     * Get the {@link SelectionRenderer} for showing selections with particles.
+     *
+     * @return The {@link SelectionRenderer}
+     */
+    public SelectionRenderer getSelectionRenderer() {
+        return renderer;
+    }
+
     /**
      * Get the {@link InputManager} for handling user input in different ways.
      *
@@ -209,6 +245,33 @@ public class Boxx extends JavaPlugin {
         return im;
     }
 
+    /**
+     * Get the {@link EditScheduler} for editing large amounts of blocks over multiple ticks.
+     *
+     * @return The {@link EditScheduler}
+     */
+    public EditScheduler getEditor() {
+        return editor;
+    }
+
+    /**
+     * Get the {@link RegionTracker} for registering regions that fire enter and leave events.
+     *
+     * @return The {@link RegionTracker}
+     */
+    public RegionTracker getRegions() {
+        return regions;
+    }
+
+    /**
+     * Get the {@link MaterialTracker} for tracking the amount of blocks per material in cuboids.
+     *
+     * @return The {@link MaterialTracker}
+     */
+    public MaterialTracker getMaterialTracker() {
+        return materials;
+    }
+
     public PluginCfg getCfg() {
         return cfg;
     }
@@ -30,6 +30,14 @@ import com.jroossien.boxx.config.internal.EasyConfig;
 public class PluginCfg extends EasyConfig {
 
     public String language = "en";
+    public int edit__msPerTick = 10;
+    public boolean edit__bulkWriter = false;
+    public boolean selection__persist = false;
+    public int selection__idleMinutes = 30;
+    public int selection__maxRadius = 512;
+    public int selection__particlesPerTick = 100;
+    public int selection__renderDistance = 48;
+    public int selection__renderInterval = 10;
 
     public PluginCfg(String fileName) {
         this.setFile(fileName);
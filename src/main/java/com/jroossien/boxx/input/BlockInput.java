@@ -28,7 +28,6 @@ package com.jroossien.boxx.input;
 import com.jroossien.boxx.input.internal.*;
 import com.jroossien.boxx.options.SingleOption;
 import org.bukkit.block.Block;
-import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.block.BlockDamageEvent;
 
@@ -38,23 +37,9 @@ public class BlockInput extends Input<Block> {
 
     @EventHandler
     private void interact(BlockDamageEvent event) {
-        Player player = event.getPlayer();
-        if (!inputMap.containsKey(player.getUniqueId())) {
-            return;
+        if (handle(event.getPlayer(), event.getBlock(), event.getBlock())) {
+            event.setCancelled(true);
         }
-
-        InputData inputData = inputMap.get(player.getUniqueId());
-        if (inputData.getValidator() != null) {
-            if (!inputData.getValidator().parse(event.getBlock())) {
-                player.sendMessage(inputData.getValidator().getError());
-                event.setCancelled(true);
-                return;
-            }
-        }
-
-        inputData.getCallback().onSubmit(event.getBlock());
-        inputMap.remove(player.getUniqueId());
-        event.setCancelled(true);
     }
 
     public static void get(UUID uuid, InputCallback<Block> callback) {
@@ -64,4 +49,8 @@ public class BlockInput extends Input<Block> {
     public static void get(UUID uuid, SingleOption validator, InputCallback<Block> callback) {
         InputManager.getInput(BlockInput.class).create(uuid, validator, callback);
     }
+
+    public static void get(UUID uuid, SingleOption validator, int timeout, InputCallback<Block> callback) {
+        InputManager.getInput(BlockInput.class).create(uuid, validator, callback, timeout, true, false);
+    }
 }
@@ -27,7 +27,6 @@ package com.jroossien.boxx.input;
 
 import com.jroossien.boxx.input.internal.*;
 import com.jroossien.boxx.options.SingleOption;
-import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.player.AsyncPlayerChatEvent;
 
@@ -37,23 +36,9 @@ public class ChatInput extends Input<String> {
 
     @EventHandler
     private void chat(AsyncPlayerChatEvent event) {
-        Player player = event.getPlayer();
-        if (!inputMap.containsKey(player.getUniqueId())) {
-            return;
+        if (handle(event.getPlayer(), event.getMessage(), event.getMessage())) {
+            event.setCancelled(true);
         }
-
-        InputData inputData = inputMap.get(player.getUniqueId());
-        if (inputData.getValidator() != null) {
-            if (!inputData.getValidator().parse(event.getMessage())) {
-                player.sendMessage(inputData.getValidator().getError());
-                event.setCancelled(true);
-                return;
-            }
-        }
-
-        inputData.getCallback().onSubmit(event.getMessage());
-        inputMap.remove(player.getUniqueId());
-        event.setCancelled(true);
     }
 
     public static void get(UUID uuid, InputCallback<String> callback) {
@@ -63,4 +48,8 @@ public class ChatInput extends Input<String> {
     public static void get(UUID uuid, SingleOption validator, InputCallback<String> callback) {
         InputManager.getInput(ChatInput.class).create(uuid, validator, callback);
     }
+
+    public static void get(UUID uuid, SingleOption validator, int timeout, InputCallback<String> callback) {
+        InputManager.getInput(ChatInput.class).create(uuid, validator, callback, timeout, true, false);
+    }
 }
@@ -25,58 +25,66 @@
 
 package com.jroossien.boxx.input;
 
+import com.jroossien.boxx.Boxx;
 import com.jroossien.boxx.input.internal.*;
 import com.jroossien.boxx.options.SingleOption;
+import org.bukkit.Bukkit;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.player.PlayerInteractAtEntityEvent;
 import org.bukkit.event.player.PlayerInteractEntityEvent;
+import org.bukkit.inventory.EquipmentSlot;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.UUID;
 
+/**
+ * Input for clicking on an entity.
+ * <p>
+ * A single right click can fire an interact event for both hands and an extra interact at event.
+ * Only the main hand is handled and follow up events of the same click are cancelled so they don't claim the next session.
+ */
 public class EntityInput extends Input<Entity> {
 
+    private final Map<UUID, Integer> clicks = new HashMap<>();
+
     @EventHandler
     private void interact(PlayerInteractEntityEvent event) {
-        Player player = event.getPlayer();
-        if (!inputMap.containsKey(player.getUniqueId())) {
-            return;
+        if (interact(event.getPlayer(), event.getRightClicked(), event.getHand())) {
+            event.setCancelled(true);
         }
-
-        InputData inputData = inputMap.get(player.getUniqueId());
-        if (inputData.getValidator() != null) {
-            if (!inputData.getValidator().parse(event.getRightClicked())) {
-                player.sendMessage(inputData.getValidator().getError());
-                event.setCancelled(true);
-                return;
-            }
-        }
-
-        inputData.getCallback().onSubmit(event.getRightClicked());
-        inputMap.remove(player.getUniqueId());
-        event.setCancelled(true);
     }
 
     @EventHandler
     private void interact(PlayerInteractAtEntityEvent event) {
-        Player player = event.getPlayer();
-        if (!inputMap.containsKey(player.getUniqueId())) {
-            return;
+        if (interact(event.getPlayer(), event.getRightClicked(), event.getHand())) {
+            event.setCancelled(true);
         }
+    }
 
-        InputData inputData = inputMap.get(player.getUniqueId());
-        if (inputData.getValidator() != null) {
-            if (!inputData.getValidator().parse(event.getRightClicked())) {
-                player.sendMessage(inputData.getValidator().getError());
-                event.setCancelled(true);
-                return;
-            }
+    private boolean interact(Player player, Entity entity, EquipmentSlot hand) {
+        final UUID uuid = player.getUniqueId();
+        Integer clicked = clicks.get(uuid);
+        if (clicked != null && clicked == entity.getEntityId()) {
+            //Follow up event from the click that already claimed a session.
+            return true;
         }
-
-        inputData.getCallback().onSubmit(event.getRightClicked());
-        inputMap.remove(player.getUniqueId());
-        event.setCancelled(true);
+        if (hand != EquipmentSlot.HAND) {
+            return false;
+        }
+        if (!handle(player, entity, entity)) {
+            return false;
+        }
+        clicks.put(uuid, entity.getEntityId());
+        Bukkit.getScheduler().runTask(Boxx.get(), new Runnable() {
+            @Override
+            public void run() {
+                clicks.remove(uuid);
+            }
+        });
+        return true;
     }
 
     public static void get(UUID uuid, InputCallback<Entity> callback) {
@@ -86,4 +94,8 @@ public class EntityInput extends Input<Entity> {
     public static void get(UUID uuid, SingleOption validator, InputCallback<Entity> callback) {
         InputManager.getInput(EntityInput.class).create(uuid, validator, callback);
     }
+
+    public static void get(UUID uuid, SingleOption validator, int timeout, InputCallback<Entity> callback) {
+        InputManager.getInput(EntityInput.class).create(uuid, validator, callback, timeout, true, false);
+    }
 }
@@ -0,0 +1,471 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Rojoss <http://jroossien.com>
+ * Copyright (c) 2016 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jroossien.boxx.input;
+
+import com.jroossien.boxx.Boxx;
+import com.jroossien.boxx.input.internal.CancelReason;
+import com.jroossien.boxx.input.internal.Input;
+import com.jroossien.boxx.input.internal.InputCallback;
+import com.jroossien.boxx.input.internal.InputManager;
+import com.jroossien.boxx.options.SingleOption;
+import com.jroossien.boxx.util.Str;
+import com.jroossien.boxx.util.item.EItem;
+import org.bukkit.block.Block;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Asks a player for multiple inputs in a row.
+ * <p>
+ * Each step has a key, an optional prompt message and an optional validator.
+ * The values are collected in a {@link Result} and passed to the {@link WizardCallback} when all steps are done.
+ * <pre>
+ * new InputWizard(player)
+ *         .chat("name", "&6Enter the name of the shop.", new StringO().minChars(3))
+ *         .block("chest", "&6Hit the chest for the shop.")
+ *         .timeout(1200)
+ *         .start(new WizardCallback() {
+ *             public void onComplete(InputWizard.Result result) {
+ *                 String name = result.get("name");
+ *                 Block chest = result.get("chest");
+ *             }
+ *         });
+ * </pre>
+ * The next step starts directly on the thread that handled the input, so there is no delay between steps.
+ * Only the final callback is moved to the main thread. (Unless {@link WizardCallback#isAsync()} is true)
+ * <p>
+ * The timeout is for the whole wizard. The wizard is cancelled when the player quits,
+ * when another input session replaces the current step or with {@link #cancel()}.
+ * Every step (including sign steps) is a regular {@link Input} session so timeouts and cancelling work the same for all steps.
+ * <p>
+ * The plugin is compiled for Java 7 so steps are chained with callbacks instead of CompletableFutures.
+ */
+public class InputWizard {
+
+    private final Player player;
+    private final List<Step> steps = new ArrayList<Step>();
+    private final Result result = new Result();
+    private final AtomicBoolean started = new AtomicBoolean(false);
+    private final AtomicBoolean done = new AtomicBoolean(false);
+
+    private int timeout;
+    private boolean cancelOnWorldChange;
+    private long deadline;
+    private WizardCallback callback;
+    private int index = -1;
+    private volatile Step current;
+
+    /**
+     * Create a new wizard for the player.
+     *
+     * @param player The player to ask for input.
+     */
+    public InputWizard(Player player) {
+        this.player = player;
+    }
+
+
+    public InputWizard chat(String key, String prompt) {
+        return chat(key, prompt, null);
+    }
+
+    /**
+     * Add a step that asks the player to type something in chat.
+     * The value is a String.
+     *
+     * @param key The key to store the value with.
+     * @param prompt The message to send when the step starts. (May be {@code null})
+     * @param validator The option to validate the input with. (May be {@code null})
+     * @return this instance
+     */
+    public InputWizard chat(String key, String prompt, SingleOption validator) {
+        return add(new InputStep<String>(key, prompt, validator, (Input<String>)InputManager.getInput(ChatInput.class)));
+    }
+
+    public InputWizard block(String key, String prompt) {
+        return block(key, prompt, null);
+    }
+
+    /**
+     * Add a step that asks the player to hit a block.
+     * The value is a {@link Block}.
+     *
+     * @param key The key to store the value with.
+     * @param prompt The message to send when the step starts. (May be {@code null})
+     * @param validator The option to validate the input with. (May be {@code null})
+     * @return this instance
+     */
+    public InputWizard block(String key, String prompt, SingleOption validator) {
+        return add(new InputStep<Block>(key, prompt, validator, (Input<Block>)InputManager.getInput(BlockInput.class)));
+    }
+
+    public InputWizard entity(String key, String prompt) {
+        return entity(key, prompt, null);
+    }
+
+    /**
+     * Add a step that asks the player to click an entity.
+     * The value is an {@link Entity}.
+     *
+     * @param key The key to store the value with.
+     * @param prompt The message to send when the step starts. (May be {@code null})
+     * @param validator The option to validate the input with. (May be {@code null})
+     * @return this instance
+     */
+    public InputWizard entity(String key, String prompt, SingleOption validator) {
+        return add(new InputStep<Entity>(key, prompt, validator, (Input<Entity>)InputManager.getInput(EntityInput.class)));
+    }
+
+    public InputWizard item(String key, String prompt) {
+        return item(key, prompt, null);
+    }
+
+    /**
+     * Add a step that asks the player to click an item in an inventory.
+     * The value is an {@link EItem}.
+     *
+     * @param key The key to store the value with.
+     * @param prompt The message to send when the step starts. (May be {@code null})
+     * @param validator The option to validate the input with. (May be {@code null})
+     * @return this instance
+     */
+    public InputWizard item(String key, String prompt, SingleOption validator) {
+        return add(new InputStep<EItem>(key, prompt, validator, (Input<EItem>)InputManager.getInput(ItemInput.class)));
+    }
+
+    public InputWizard sign(String key, String prompt) {
+        return sign(key, prompt, null);
+    }
+
+    /**
+     * Add a step that opens a sign editor for the player.
+     * The value is a String array with the lines of the sign.
+     * The validator gets the lines joined with spaces and when it fails the sign is opened again.
+     *
+     * @param key The key to store the value with.
+     * @param prompt The message to send when the step starts. (May be {@code null})
+     * @param validator The option to validate the input with. (May be {@code null})
+     * @return this instance
+     */
+    public InputWizard sign(String key, String prompt, SingleOption validator) {
+        return add(new SignStep(key, prompt, validator, (SignInput)InputManager.getInput(SignInput.class)));
+    }
+
+    /**
+     * Set the maximum amount of ticks the player has to complete all steps.
+     *
+     * @param timeout The timeout in ticks. (0 for no timeout)
+     * @return this instance
+     */
+    public InputWizard timeout(int timeout) {
+        this.timeout = timeout;
+        return this;
+    }
+
+    /**
+     * Cancel the wizard when the player changes worlds.
+     *
+     * @param cancelOnWorldChange When true the wizard is cancelled with {@link CancelReason#WORLD_CHANGE}.
+     * @return this instance
+     */
+    public InputWizard cancelOnWorldChange(boolean cancelOnWorldChange) {
+        this.cancelOnWorldChange = cancelOnWorldChange;
+        return this;
+    }
+
+    private InputWizard add(Step step) {
+        if (started.get()) {
+            throw new IllegalStateException("Steps can't be added after the wizard has been started.");
+        }
+        steps.add(step);
+        return this;
+    }
+
+
+    /**
+     * Start the wizard by starting the first step.
+     *
+     * @param callback The callback to call when the wizard is done.
+     * @return this instance
+     * @throws IllegalStateException when the wizard has already been started or has no steps.
+     */
+    public InputWizard start(WizardCallback callback) {
+        if (steps.isEmpty()) {
+            throw new IllegalStateException("The wizard doesn't have any steps.");
+        }
+        if (!started.compareAndSet(false, true)) {
+            throw new IllegalStateException("The wizard has already been started.");
+        }
+        this.callback = callback;
+        deadline = timeout > 0 ? System.currentTimeMillis() + timeout * 50L : 0;
+        next();
+        return this;
+    }
+
+    /**
+     * Cancel the wizard.
+     * The callback will get {@link CancelReason#CANCELLED}.
+     *
+     * @return true when the wizard was cancelled and false if it was already done.
+     */
+    public boolean cancel() {
+        if (done.get()) {
+            return false;
+        }
+        Step step = current;
+        if (step != null && step.cancelSession()) {
+            //The step callback finishes the wizard.
+            return true;
+        }
+        return finish(State.CANCELLED, CancelReason.CANCELLED);
+    }
+
+    /**
+     * @return true when the wizard completed, timed out or was cancelled.
+     */
+    public boolean isDone() {
+        return done.get();
+    }
+
+    public Player getPlayer() {
+        return player;
+    }
+
+    /**
+     * Get the values of the completed steps.
+     *
+     * @return The {@link Result}
+     */
+    public Result getResult() {
+        return result;
+    }
+
+
+    /**
+     * Store the value of the current step and start the next step.
+     * Steps run one after another so this is never called concurrently.
+     */
+    private void submit(String key, Object value) {
+        result.put(key, value);
+        next();
+    }
+
+    private void next() {
+        if (done.get()) {
+            return;
+        }
+        index++;
+        if (index >= steps.size()) {
+            finish(State.COMPLETED, null);
+            return;
+        }
+        int remaining = 0;
+        if (deadline > 0) {
+            long millis = deadline - System.currentTimeMillis();
+            if (millis <= 0) {
+                finish(State.TIMED_OUT, null);
+                return;
+            }
+            remaining = (int)Math.max(1, (millis + 49) / 50);
+        }
+        Step step = steps.get(index);
+        if (step.prompt != null) {
+            player.sendMessage(Str.color(step.prompt));
+        }
+        step.start(remaining);
+    }
+
+    private boolean finish(final State state, final CancelReason reason) {
+        if (!done.compareAndSet(false, true)) {
+            return false;
+        }
+        //A step may have started on another thread right before finishing, its session would consume the next input.
+        Step step = current;
+        current = null;
+        if (step != null) {
+            step.cancelSession();
+        }
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                if (state == State.COMPLETED) {
+                    callback.onComplete(result);
+                } else if (state == State.TIMED_OUT) {
+                    callback.onTimeout(result);
+                } else {
+                    callback.onCancel(reason, result);
+                }
+            }
+        };
+        if (callback.isAsync()) {
+            task.run();
+        } else {
+            Boxx.get().getIM().runSync(task);
+        }
+        return true;
+    }
+
+
+    private enum State {
+        COMPLETED, TIMED_OUT, CANCELLED;
+    }
+
+    private abstract class Step {
+        protected final String key;
+        protected final String prompt;
+        protected final SingleOption validator;
+
+        private Step(String key, String prompt, SingleOption validator) {
+            this.key = key;
+            this.prompt = prompt;
+            this.validator = validator;
+        }
+
+        /**
+         * Start waiting for input.
+         *
+         * @param timeout The remaining ticks before the wizard times out. (0 for no timeout)
+         */
+        protected abstract void start(int timeout);
+
+        /**
+         * Cancel the pending session of this step.
+         *
+         * @return true when the session was still pending and got cancelled.
+         */
+        protected boolean cancelSession() {
+            return false;
+        }
+    }
+
+    /**
+     * Step that creates a session for one of the {@link Input} handlers.
+     * The session callback is async so the next step starts on the thread that handled the input.
+     */
+    private class InputStep<T> extends Step {
+        private final Input<T> input;
+        private volatile InputCallback<T> session;
+
+        private InputStep(String key, String prompt, SingleOption validator, Input<T> input) {
+            super(key, prompt, validator);
+            this.input = input;
+        }
+
+        @Override
+        protected void start(int timeout) {
+            current = this;
+            session = new InputCallback<T>() {
+                @Override
+                public void onSubmit(T value) {
+                    submit(key, value);
+                }
+
+                @Override
+                public void onTimeout() {
+                    finish(State.TIMED_OUT, null);
+                }
+
+                @Override
+                public void onCancel(CancelReason reason) {
+                    finish(State.CANCELLED, reason);
+                }
+
+                @Override
+                public boolean isAsync() {
+                    return true;
+                }
+            };
+            input.create(player.getUniqueId(), validator, session, timeout, true, cancelOnWorldChange);
+            if (done.get()) {
+                //The wizard got cancelled while the session was created.
+                cancelSession();
+            }
+        }
+
+        @Override
+        protected boolean cancelSession() {
+            InputCallback<T> session = this.session;
+            return session != null && input.cancel(player.getUniqueId(), session);
+        }
+    }
+
+    /**
+     * Step that opens a sign editor with the {@link SignInput} after creating the session.
+     */
+    private class SignStep extends InputStep<String[]> {
+        private final SignInput input;
+
+        private SignStep(String key, String prompt, SingleOption validator, SignInput input) {
+            super(key, prompt, validator, input);
+            this.input = input;
+        }
+
+        @Override
+        protected void start(int timeout) {
+            super.start(timeout);
+            input.open(player);
+        }
+    }
+
+    /**
+     * The values of the steps of a wizard by key.
+     */
+    public static class Result {
+        private final Map<String, Object> values = new LinkedHashMap<String, Object>();
+
+        private synchronized void put(String key, Object value) {
+            values.put(key, value);
+        }
+
+        /**
+         * Get the value of a step.
+         *
+         * @param key The key of the step.
+         * @return The value or null when the step hasn't been completed.
+         */
+        public synchronized <T> T get(String key) {
+            return (T)values.get(key);
+        }
+
+        /**
+         * @param key The key of the step.
+         * @return true when the step has been completed.
+         */
+        public synchronized boolean has(String key) {
+            return values.containsKey(key);
+        }
+
+        /**
+         * @return A copy of all the values by key in the order of the steps.
+         */
+        public synchronized Map<String, Object> getValues() {
+            return new LinkedHashMap<String, Object>(values);
+        }
+    }
+}
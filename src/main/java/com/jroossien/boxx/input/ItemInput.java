@@ -46,20 +46,10 @@ public class ItemInput extends Input<EItem> {
         if (event.getCurrentItem() == null || event.getCurrentItem().getType() == Material.AIR) {
             return;
         }
-        InputData inputData = inputMap.get(player.getUniqueId());
-
         EItem item = new EItem(event.getCurrentItem());
-        if (inputData.getValidator() != null) {
-            if (!inputData.getValidator().parse(item)) {
-                player.sendMessage(inputData.getValidator().getError());
-                event.setCancelled(true);
-                return;
-            }
+        if (handle(player, item, item)) {
+            event.setCancelled(true);
         }
-
-        inputData.getCallback().onSubmit(new EItem(event.getCurrentItem()));
-        inputMap.remove(player.getUniqueId());
-        event.setCancelled(true);
     }
 
     public static void get(UUID uuid, InputCallback<EItem> callback) {
@@ -69,4 +59,8 @@ public class ItemInput extends Input<EItem> {
     public static void get(UUID uuid, SingleOption validator, InputCallback<EItem> callback) {
         InputManager.getInput(ItemInput.class).create(uuid, validator, callback);
     }
+
+    public static void get(UUID uuid, SingleOption validator, int timeout, InputCallback<EItem> callback) {
+        InputManager.getInput(ItemInput.class).create(uuid, validator, callback, timeout, true, false);
+    }
 }
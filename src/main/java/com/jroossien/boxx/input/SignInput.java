@@ -0,0 +1,83 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Rojoss <http://jroossien.com>
+ * Copyright (c) 2016 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jroossien.boxx.input;
+
+import com.jroossien.boxx.input.internal.*;
+import com.jroossien.boxx.nms.NMS;
+import com.jroossien.boxx.nms.sign.SignGUICallback;
+import com.jroossien.boxx.options.SingleOption;
+import com.jroossien.boxx.util.Str;
+import org.bukkit.entity.Player;
+
+/**
+ * Input from a sign editor opened with the {@link com.jroossien.boxx.nms.sign.SignGUI}.
+ * The value is a String array with the lines of the sign.
+ * The validator gets the lines joined with spaces and when it fails the sign is opened again.
+ * <p>
+ * The sign editor can't be closed for the player, so when the session times out or is cancelled
+ * the edit is ignored when the player submits it.
+ */
+public class SignInput extends Input<String[]> {
+
+    /**
+     * Open the sign editor for the player if there is a pending session.
+     *
+     * @param player The player to open the sign editor for.
+     */
+    public void open(final Player player) {
+        if (!hasSession(player.getUniqueId())) {
+            return;
+        }
+        NMS.get().getSignGUI().show(player, new SignGUICallback() {
+            @Override
+            public void onEdit(String[] lines) {
+                InputData<String[]> inputData = inputMap.get(player.getUniqueId());
+                if (inputData == null) {
+                    return;
+                }
+                handle(player, Str.implode(lines, " ").trim(), lines);
+                if (inputMap.get(player.getUniqueId()) == inputData) {
+                    //The same session is still pending so the validation failed.
+                    open(player);
+                }
+            }
+        });
+    }
+
+    public static void get(Player player, InputCallback<String[]> callback) {
+        get(player, null, 0, callback);
+    }
+
+    public static void get(Player player, SingleOption validator, InputCallback<String[]> callback) {
+        get(player, validator, 0, callback);
+    }
+
+    public static void get(Player player, SingleOption validator, int timeout, InputCallback<String[]> callback) {
+        SignInput input = (SignInput)InputManager.getInput(SignInput.class);
+        input.create(player.getUniqueId(), validator, callback, timeout, true, false);
+        input.open(player);
+    }
+}
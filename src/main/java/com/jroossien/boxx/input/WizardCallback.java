@@ -0,0 +1,67 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Rojoss <http://jroossien.com>
+ * Copyright (c) 2016 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jroossien.boxx.input;
+
+import com.jroossien.boxx.input.internal.CancelReason;
+
+/**
+ * Callback for an {@link InputWizard}.
+ * Exactly one of the methods is called once the wizard is done.
+ */
+public abstract class WizardCallback {
+
+    /**
+     * Called when all steps of the wizard have been completed.
+     *
+     * @param result The values of all steps.
+     */
+    public abstract void onComplete(InputWizard.Result result);
+
+    /**
+     * Called when the wizard timed out before all steps were completed.
+     *
+     * @param result The values of the steps that were completed.
+     */
+    public void onTimeout(InputWizard.Result result) {}
+
+    /**
+     * Called when the wizard was cancelled before all steps were completed.
+     *
+     * @param reason The reason why the wizard was cancelled.
+     * @param result The values of the steps that were completed.
+     */
+    public void onCancel(CancelReason reason, InputWizard.Result result) {}
+
+    /**
+     * Whether the callback methods can be called on the thread that handled the last input.
+     * By default they are always called on the main thread.
+     *
+     * @return true to allow calling the callback from async threads.
+     */
+    public boolean isAsync() {
+        return false;
+    }
+}
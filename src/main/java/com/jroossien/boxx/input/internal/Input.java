@@ -25,21 +25,194 @@
 
 package com.jroossien.boxx.input.internal;
 
+import com.jroossien.boxx.Boxx;
 import com.jroossien.boxx.options.SingleOption;
+import org.bukkit.entity.Player;
 import org.bukkit.event.Listener;
 
-import java.util.HashMap;
-import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Base class for input handlers.
+ * <p>
+ * Sessions are stored in a concurrent map because some inputs (like chat) are handled on async threads.
+ * A session is claimed by atomically removing it so the callback is never called twice for the same session.
+ * Validation happens on the thread that fired the event and callbacks are called on the main thread
+ * unless {@link InputCallback#isAsync()} is true.
+ * <p>
+ * Sessions can have a timeout and can be cancelled when the player quits or changes worlds.
+ * The {@link InputManager} expires and cancels them and calls {@link InputCallback#onTimeout()} or {@link InputCallback#onCancel(CancelReason)}.
+ * <p>
+ * The listener is registered by the {@link InputManager} when the first session is created and unregistered when the last session is done.
+ */
 public abstract class Input<T> implements Listener {
-    protected Map<UUID, InputData<T>> inputMap = new HashMap<>();
+    protected final ConcurrentHashMap<UUID, InputData<T>> inputMap = new ConcurrentHashMap<>();
 
     public void create(UUID uuid, InputCallback<T> callback) {
-        inputMap.put(uuid, new InputData<T>(null, callback));
+        create(uuid, null, callback);
     }
 
     public void create(UUID uuid, SingleOption validator, InputCallback<T> callback) {
-        inputMap.put(uuid, new InputData<T>(validator, callback));
+        create(uuid, validator, callback, 0, true, false);
+    }
+
+    /**
+     * Create an input session for a player.
+     * When the player already has a session for this input it will be cancelled with {@link CancelReason#REPLACED}.
+     *
+     * @param uuid The uuid of the player.
+     * @param validator The option used to validate the input. (May be {@code null})
+     * @param callback The callback to call with the input.
+     * @param timeout The amount of ticks before the session expires. (0 to never expire)
+     * @param cancelOnQuit When true the session is cancelled when the player quits.
+     * @param cancelOnWorldChange When true the session is cancelled when the player changes worlds.
+     */
+    public void create(UUID uuid, SingleOption validator, InputCallback<T> callback, int timeout, boolean cancelOnQuit, boolean cancelOnWorldChange) {
+        InputData<T> inputData = new InputData<T>(uuid, this, validator, callback, timeout, cancelOnQuit, cancelOnWorldChange);
+        InputManager manager = Boxx.get().getIM();
+        InputData<T> previous = inputMap.put(uuid, inputData);
+        if (previous != null) {
+            manager.unschedule(previous);
+            dispatchCancel(previous, CancelReason.REPLACED);
+        } else {
+            manager.refresh(this);
+        }
+        //Scheduled after adding it so it can't expire before it's in the map. (A claimed session expiring does nothing)
+        if (timeout > 0) {
+            manager.schedule(inputData);
+        }
+    }
+
+    /**
+     * Check if the player has a pending session for this input.
+     *
+     * @param uuid The uuid of the player.
+     * @return true when there is a pending session.
+     */
+    public boolean hasSession(UUID uuid) {
+        return inputMap.containsKey(uuid);
+    }
+
+    /**
+     * Cancel the pending session of the player.
+     * The callback will get {@link CancelReason#CANCELLED}.
+     *
+     * @param uuid The uuid of the player.
+     * @return true when there was a session to cancel.
+     */
+    public boolean cancel(UUID uuid) {
+        InputData<T> inputData = inputMap.get(uuid);
+        return inputData != null && cancel(inputData, CancelReason.CANCELLED);
+    }
+
+    /**
+     * Cancel the pending session of the player when it was created with the given callback.
+     * This way a session that replaced it isn't cancelled.
+     * The callback will get {@link CancelReason#CANCELLED}.
+     *
+     * @param uuid The uuid of the player.
+     * @param callback The callback the session was created with.
+     * @return true when the session was pending and got cancelled.
+     */
+    public boolean cancel(UUID uuid, InputCallback<T> callback) {
+        InputData<T> inputData = inputMap.get(uuid);
+        return inputData != null && inputData.getCallback() == callback && cancel(inputData, CancelReason.CANCELLED);
+    }
+
+    /**
+     * Cancel the session when it hasn't been claimed yet.
+     *
+     * @return true when the session was cancelled.
+     */
+    boolean cancel(InputData<T> inputData, CancelReason reason) {
+        if (!inputMap.remove(inputData.getUUID(), inputData)) {
+            return false;
+        }
+        Boxx.get().getIM().unschedule(inputData);
+        Boxx.get().getIM().refresh(this);
+        dispatchCancel(inputData, reason);
+        return true;
+    }
+
+    /**
+     * Expire the session when it hasn't been claimed yet.
+     * The session has already been removed from the timing wheel.
+     */
+    void expire(InputData<T> inputData) {
+        if (!inputMap.remove(inputData.getUUID(), inputData)) {
+            return;
+        }
+        Boxx.get().getIM().refresh(this);
+        final InputCallback<T> callback = inputData.getCallback();
+        dispatch(callback, new Runnable() {
+            @Override
+            public void run() {
+                callback.onTimeout();
+            }
+        });
+    }
+
+
+    /**
+     * Handle input from a player.
+     * When the player has a session the input is validated and the session is claimed.
+     *
+     * @param player The player that gave input.
+     * @param input The input to validate. (Passed to the validator)
+     * @param value The value to submit to the callback.
+     * @return true when the player had a session and the event should be cancelled.
+     */
+    protected boolean handle(Player player, Object input, final T value) {
+        UUID uuid = player.getUniqueId();
+        InputData<T> inputData = inputMap.get(uuid);
+        if (inputData == null) {
+            return false;
+        }
+
+        SingleOption validator = inputData.getValidator();
+        if (validator != null) {
+            //The validator stores the parse result so events for the same session must not parse at the same time.
+            synchronized (validator) {
+                if (!validator.parse(input)) {
+                    player.sendMessage(validator.getError());
+                    return true;
+                }
+            }
+        }
+
+        if (inputMap.remove(uuid, inputData)) {
+            Boxx.get().getIM().unschedule(inputData);
+            Boxx.get().getIM().refresh(this);
+            final InputCallback<T> callback = inputData.getCallback();
+            dispatch(callback, new Runnable() {
+                @Override
+                public void run() {
+                    callback.onSubmit(value);
+                }
+            });
+        }
+        return true;
+    }
+
+    private void dispatchCancel(InputData<T> inputData, final CancelReason reason) {
+        final InputCallback<T> callback = inputData.getCallback();
+        dispatch(callback, new Runnable() {
+            @Override
+            public void run() {
+                callback.onCancel(reason);
+            }
+        });
+    }
+
+    /**
+     * Run the callback task on the main thread or directly when the callback is async.
+     */
+    private void dispatch(InputCallback<T> callback, Runnable task) {
+        if (callback.isAsync()) {
+            task.run();
+        } else {
+            Boxx.get().getIM().runSync(task);
+        }
     }
 }
@@ -27,4 +27,27 @@ package com.jroossien.boxx.input.internal;
 
 public abstract class InputCallback<T> {
     public abstract void onSubmit(T value);
+
+    /**
+     * Called when the session expired before the player gave input.
+     */
+    public void onTimeout() {}
+
+    /**
+     * Called when the session was cancelled before the player gave input.
+     *
+     * @param reason The reason why the session was cancelled.
+     */
+    public void onCancel(CancelReason reason) {}
+
+    /**
+     * Whether the callback methods can be called on the thread that handled the input.
+     * By default callbacks are always called on the main thread so they can safely use the Bukkit API.
+     * Override this and return true to get the value without waiting for the next tick when input comes from an async thread. (like chat)
+     *
+     * @return true to allow calling the callback from async threads.
+     */
+    public boolean isAsync() {
+        return false;
+    }
 }
@@ -27,13 +27,35 @@ package com.jroossien.boxx.input.internal;
 
 import com.jroossien.boxx.options.SingleOption;
 
+import java.util.UUID;
+
 public class InputData<T> {
     private SingleOption validator;
     private InputCallback<T> callback;
+    private UUID uuid;
+    private Input<T> input;
+    private int timeout;
+    private boolean cancelOnQuit;
+    private boolean cancelOnWorldChange;
+
+    //Position in the timing wheel.
+    InputData<?> prev;
+    InputData<?> next;
+    int slot = -1;
+    long rounds;
 
     public InputData(SingleOption validator, InputCallback callback) {
+        this(null, null, validator, callback, 0, true, false);
+    }
+
+    public InputData(UUID uuid, Input<T> input, SingleOption validator, InputCallback<T> callback, int timeout, boolean cancelOnQuit, boolean cancelOnWorldChange) {
+        this.uuid = uuid;
+        this.input = input;
         this.validator = validator;
         this.callback = callback;
+        this.timeout = timeout;
+        this.cancelOnQuit = cancelOnQuit;
+        this.cancelOnWorldChange = cancelOnWorldChange;
     }
 
     public SingleOption getValidator() {
@@ -43,4 +65,27 @@ public class InputData<T> {
     public InputCallback<T> getCallback() {
         return callback;
     }
+
+    public UUID getUUID() {
+        return uuid;
+    }
+
+    public Input<T> getInput() {
+        return input;
+    }
+
+    /**
+     * @return The amount of ticks before the session expires. (0 when it never expires)
+     */
+    public int getTimeout() {
+        return timeout;
+    }
+
+    public boolean cancelOnQuit() {
+        return cancelOnQuit;
+    }
+
+    public boolean cancelOnWorldChange() {
+        return cancelOnWorldChange;
+    }
 }
@@ -27,15 +27,51 @@ package com.jroossien.boxx.input.internal;
 
 import com.jroossien.boxx.Boxx;
 import com.jroossien.boxx.input.*;
+import org.bukkit.Bukkit;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.scheduler.BukkitTask;
 
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
 
+/**
+ * Manages the input handlers and their sessions.
+ * <p>
+ * The listener of an input handler is only registered while it has pending sessions.
+ * When nobody is being prompted no input listeners, quit/world change listener or timeout task are registered,
+ * so chat messages and interactions don't pay anything for the input system.
+ * Registering and unregistering always happens on the main thread.
+ */
 public class InputManager {
 
     private Boxx boxx;
     private static Map<Class<? extends Input>, Input> inputClasses = new HashMap<>();
 
+    private final Queue<Runnable> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+    //Slots for a bit over 25 seconds, longer timeouts take multiple rounds.
+    private final TimingWheel wheel = new TimingWheel(512);
+
+    //Handlers with a registered listener. (Only used on the main thread)
+    private final Set<Input> active = new HashSet<>();
+    private final SessionListener sessionListener = new SessionListener();
+    private BukkitTask expireTask;
+
     public InputManager(Boxx boxx) {
         this.boxx = boxx;
 
@@ -43,6 +79,7 @@ public class InputManager {
         registerInputHandler(new ChatInput());
         registerInputHandler(new EntityInput());
         registerInputHandler(new ItemInput());
+        registerInputHandler(new SignInput());
     }
 
     public void registerInputHandler(Input inputClass) {
@@ -50,10 +87,155 @@ public class InputManager {
             return;
         }
         inputClasses.put(inputClass.getClass(), inputClass);
-        boxx.getServer().getPluginManager().registerEvents(inputClass, boxx);
     }
 
     public static Input getInput(Class<? extends Input> type) {
         return inputClasses.get(type);
     }
+
+    /**
+     * Register or unregister the listener of the handler based on whether it has pending sessions.
+     * Called after adding or removing sessions. Sessions created on async threads get their listener on the next tick.
+     */
+    void refresh(final Input input) {
+        runSync(new Runnable() {
+            @Override
+            public void run() {
+                update(input);
+            }
+        });
+    }
+
+    private void update(Input input) {
+        boolean pending = !input.inputMap.isEmpty();
+        if (pending == active.contains(input)) {
+            return;
+        }
+        if (pending) {
+            if (active.isEmpty()) {
+                start();
+            }
+            active.add(input);
+            boxx.getServer().getPluginManager().registerEvents(input, boxx);
+        } else {
+            active.remove(input);
+            HandlerList.unregisterAll(input);
+            if (active.isEmpty()) {
+                stop();
+            }
+        }
+    }
+
+    /**
+     * Register the session listener and start ticking the timing wheel when the first handler becomes active.
+     */
+    private void start() {
+        boxx.getServer().getPluginManager().registerEvents(sessionListener, boxx);
+        expireTask = new BukkitRunnable() {
+            @Override
+            public void run() {
+                expire();
+            }
+        }.runTaskTimer(boxx, 1, 1);
+    }
+
+    /**
+     * Unregister the session listener and stop the timing wheel when the last handler becomes idle.
+     */
+    private void stop() {
+        HandlerList.unregisterAll(sessionListener);
+        if (expireTask != null) {
+            expireTask.cancel();
+            expireTask = null;
+        }
+    }
+
+    /**
+     * Schedule the timeout of the session.
+     */
+    void schedule(InputData<?> inputData) {
+        wheel.schedule(inputData, inputData.getTimeout());
+    }
+
+    /**
+     * Remove the session from the timeouts.
+     */
+    void unschedule(InputData<?> inputData) {
+        wheel.remove(inputData);
+    }
+
+    private void expire() {
+        List<InputData<?>> expired = wheel.tick();
+        if (expired == null) {
+            return;
+        }
+        for (InputData inputData : expired) {
+            inputData.getInput().expire(inputData);
+        }
+    }
+
+    /**
+     * Cancel the sessions of the player for all inputs.
+     */
+    private void cancel(UUID uuid, CancelReason reason) {
+        for (Input<?> input : inputClasses.values()) {
+            cancel(input, uuid, reason);
+        }
+    }
+
+    private <T> void cancel(Input<T> input, UUID uuid, CancelReason reason) {
+        InputData<T> inputData = input.inputMap.get(uuid);
+        if (inputData == null) {
+            return;
+        }
+        if (reason == CancelReason.QUIT ? inputData.cancelOnQuit() : inputData.cancelOnWorldChange()) {
+            input.cancel(inputData, reason);
+        }
+    }
+
+    /**
+     * Run the task on the main thread.
+     * When called from the main thread the task runs directly.
+     * Tasks from async threads are queued and all queued tasks run together in a single task on the next tick.
+     *
+     * @param task The task to run.
+     */
+    public void runSync(Runnable task) {
+        if (Bukkit.isPrimaryThread()) {
+            task.run();
+            return;
+        }
+        pending.add(task);
+        if (scheduled.compareAndSet(false, true)) {
+            new BukkitRunnable() {
+                @Override
+                public void run() {
+                    scheduled.set(false);
+                    Runnable task;
+                    while ((task = pending.poll()) != null) {
+                        //Keep draining so one failing callback doesn't delay the callbacks of other players.
+                        try {
+                            task.run();
+                        } catch (Exception e) {
+                            boxx.getLogger().log(Level.SEVERE, "Input callback threw an exception.", e);
+                        }
+                    }
+                }
+            }.runTask(boxx);
+        }
+    }
+
+
+    private class SessionListener implements Listener {
+
+        @EventHandler(priority = EventPriority.MONITOR)
+        private void onQuit(PlayerQuitEvent event) {
+            cancel(event.getPlayer().getUniqueId(), CancelReason.QUIT);
+        }
+
+        @EventHandler(priority = EventPriority.MONITOR)
+        private void onWorldChange(PlayerChangedWorldEvent event) {
+            cancel(event.getPlayer().getUniqueId(), CancelReason.WORLD_CHANGE);
+        }
+    }
 }
@@ -0,0 +1,140 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Rojoss <http://jroossien.com>
+ * Copyright (c) 2016 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jroossien.boxx.input.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hashed timing wheel for input session timeouts.
+ * <p>
+ * Sessions are stored in a ring of slots (one slot per tick) as intrusive linked lists.
+ * A session that expires after more ticks than there are slots stays in its slot for multiple rounds.
+ * Scheduling and removing sessions is O(1) and each tick only visits the sessions in a single slot,
+ * so a large amount of pending sessions doesn't cost anything extra per tick.
+ * <p>
+ * All methods are synchronized because sessions can be created from async threads.
+ */
+class TimingWheel {
+
+    private final InputData<?>[] slots;
+    private final int mask;
+    private long tick;
+    private int size;
+
+    /**
+     * @param slotCount The amount of slots. (Rounded up to a power of two)
+     */
+    TimingWheel(int slotCount) {
+        int count = Integer.highestOneBit(Math.max(2, slotCount) - 1) << 1;
+        slots = new InputData<?>[count];
+        mask = count - 1;
+    }
+
+    /**
+     * Schedule the session to expire after the delay.
+     * When the session is already scheduled it will be rescheduled.
+     *
+     * @param data The session.
+     * @param delay The amount of ticks till it expires.
+     */
+    synchronized void schedule(InputData<?> data, int delay) {
+        unlink(data);
+        delay = Math.max(1, delay);
+        int slot = (int)((tick + delay) & mask);
+        data.rounds = (delay - 1) / slots.length;
+        data.slot = slot;
+        data.prev = null;
+        data.next = slots[slot];
+        if (data.next != null) {
+            data.next.prev = data;
+        }
+        slots[slot] = data;
+        size++;
+    }
+
+    /**
+     * Remove the session from the wheel.
+     *
+     * @param data The session.
+     */
+    synchronized void remove(InputData<?> data) {
+        unlink(data);
+    }
+
+    /**
+     * Advance the wheel by one tick.
+     *
+     * @return The sessions that expired or null when there are none.
+     */
+    synchronized List<InputData<?>> tick() {
+        tick++;
+        if (size == 0) {
+            return null;
+        }
+        List<InputData<?>> expired = null;
+        InputData<?> data = slots[(int)(tick & mask)];
+        while (data != null) {
+            InputData<?> next = data.next;
+            if (data.rounds <= 0) {
+                unlink(data);
+                if (expired == null) {
+                    expired = new ArrayList<>();
+                }
+                expired.add(data);
+            } else {
+                data.rounds--;
+            }
+            data = next;
+        }
+        return expired;
+    }
+
+    /**
+     * @return The amount of scheduled sessions.
+     */
+    synchronized int size() {
+        return size;
+    }
+
+    private void unlink(InputData<?> data) {
+        if (data.slot < 0) {
+            return;
+        }
+        if (data.prev != null) {
+            data.prev.next = data.next;
+        } else {
+            slots[data.slot] = data.next;
+        }
+        if (data.next != null) {
+            data.next.prev = data.prev;
+        }
+        data.prev = null;
+        data.next = null;
+        data.slot = -1;
+        size--;
+    }
+}
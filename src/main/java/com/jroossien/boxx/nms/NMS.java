@@ -27,6 +27,7 @@ package com.jroossien.boxx.nms;
 
 import com.jroossien.boxx.Boxx;
 import com.jroossien.boxx.nms.annotation.NMSDependant;
+import com.jroossien.boxx.nms.block.BulkBlockWriter;
 import com.jroossien.boxx.nms.chat.Chat;
 import com.jroossien.boxx.nms.entity.EntityUtils;
 import com.jroossien.boxx.nms.item.ItemUtils;
@@ -77,6 +78,16 @@ public class NMS {
         return signGUI;
     }
 
+    /**
+     * Create a new {@link BulkBlockWriter} for the server version.
+     * Each writer keeps track of its own changes so don't share writers between multiple schedulers.
+     *
+     * @return A new {@link BulkBlockWriter}
+     */
+    public BulkBlockWriter createBulkWriter() {
+        return (BulkBlockWriter)loadFromNMS(BulkBlockWriter.class);
+    }
+
 
     public NMSVersion getVersion() {
         return version;
@@ -0,0 +1,197 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Rojoss <http://jroossien.com>
+ * Copyright (c) 2016 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jroossien.boxx.nms.block;
+
+import com.jroossien.boxx.nms.util.NMSUtil_V1_10_R1;
+import net.minecraft.server.v1_10_R1.*;
+import org.bukkit.Bukkit;
+import org.bukkit.craftbukkit.v1_10_R1.CraftWorld;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class BulkBlockWriter_V1_10_R1 implements BulkBlockWriter {
+
+    private static final int MAX_MULTI_CHANGES = 64;
+
+    private final Map<org.bukkit.World, Map<Long, ChunkChanges>> changes = new HashMap<>();
+    private ChunkChanges lastChanges;
+
+    @Override
+    public void setBlock(org.bukkit.World world, int x, int y, int z, int typeId, byte data) {
+        if (y < 0 || y > 255) {
+            return;
+        }
+        ChunkChanges chunkChanges = getChanges(world, x >> 4, z >> 4);
+        Chunk chunk = chunkChanges.chunk;
+        IBlockData blockData = Block.getByCombinedId(typeId + ((data & 15) << 12));
+
+        ChunkSection[] sections = chunk.getSections();
+        ChunkSection section = sections[y >> 4];
+        IBlockData prevData = section == null ? Blocks.AIR.getBlockData() : section.getType(x & 15, y & 15, z & 15);
+        if (prevData == blockData) {
+            return;
+        }
+
+        //Tile entities have to be created/removed by the world so fall back to the regular method without physics.
+        if (prevData.getBlock() instanceof ITileEntity || blockData.getBlock() instanceof ITileEntity) {
+            chunk.getWorld().setTypeAndData(new BlockPosition(x, y, z), blockData, 2);
+            return;
+        }
+
+        if (section == null) {
+            if (blockData.getBlock() == Blocks.AIR) {
+                return;
+            }
+            section = new ChunkSection(y >> 4 << 4, world.getEnvironment() == org.bukkit.World.Environment.NORMAL);
+            sections[y >> 4] = section;
+        }
+        section.setType(x & 15, y & 15, z & 15, blockData);
+        chunkChanges.add(x, y, z);
+    }
+
+    @Override
+    public int getState(org.bukkit.World world, int x, int y, int z) {
+        if (y < 0 || y > 255) {
+            return 0;
+        }
+        ChunkSection section = getChanges(world, x >> 4, z >> 4).chunk.getSections()[y >> 4];
+        if (section == null) {
+            return 0;
+        }
+        //The combined id has the same format. (id | data << 12)
+        return Block.getCombinedId(section.getType(x & 15, y & 15, z & 15));
+    }
+
+    @Override
+    public void flush() {
+        int viewDistance = Bukkit.getViewDistance();
+        for (Map.Entry<org.bukkit.World, Map<Long, ChunkChanges>> entry : changes.entrySet()) {
+            WorldServer nmsWorld = ((CraftWorld)entry.getKey()).getHandle();
+
+            //Update all height maps first so the light checks see the new blocks in neighbouring chunks too.
+            for (ChunkChanges chunkChanges : entry.getValue().values()) {
+                if (chunkChanges.count > 0) {
+                    chunkChanges.chunk.initLighting();
+                    chunkChanges.chunk.mustSave = true;
+                }
+            }
+            for (ChunkChanges chunkChanges : entry.getValue().values()) {
+                relight(nmsWorld, chunkChanges);
+            }
+
+            List<Player> players = entry.getKey().getPlayers();
+            for (ChunkChanges chunkChanges : entry.getValue().values()) {
+                if (chunkChanges.count == 0) {
+                    continue;
+                }
+                Chunk chunk = chunkChanges.chunk;
+
+                Packet packet;
+                if (chunkChanges.count > MAX_MULTI_CHANGES) {
+                    packet = new PacketPlayOutMapChunk(chunk, 65535);
+                } else {
+                    packet = new PacketPlayOutMultiBlockChange(chunkChanges.count, chunkChanges.positions, chunk);
+                }
+                NMSUtil_V1_10_R1.sendPacket(getViewers(players, chunk, viewDistance), packet);
+            }
+        }
+        changes.clear();
+        lastChanges = null;
+    }
+
+    /**
+     * Propagate the block and sky light from all changed positions in the chunk.
+     * This spreads light from placed/removed light sources and opacity changes in to the neighbouring chunks.
+     */
+    private static void relight(WorldServer nmsWorld, ChunkChanges chunkChanges) {
+        int baseX = chunkChanges.chunk.locX << 4;
+        int baseZ = chunkChanges.chunk.locZ << 4;
+        BlockPosition.MutableBlockPosition pos = new BlockPosition.MutableBlockPosition();
+        for (int i = 0; i < chunkChanges.count; i++) {
+            short position = chunkChanges.positions[i];
+            pos.c(baseX + (position >> 12 & 15), position & 255, baseZ + (position >> 8 & 15));
+            nmsWorld.c(EnumSkyBlock.BLOCK, pos);
+            nmsWorld.c(EnumSkyBlock.SKY, pos);
+        }
+    }
+
+    private ChunkChanges getChanges(org.bukkit.World world, int chunkX, int chunkZ) {
+        if (lastChanges != null && lastChanges.world == world && lastChanges.chunk.locX == chunkX && lastChanges.chunk.locZ == chunkZ) {
+            return lastChanges;
+        }
+        Map<Long, ChunkChanges> worldChanges = changes.get(world);
+        if (worldChanges == null) {
+            worldChanges = new HashMap<>();
+            changes.put(world, worldChanges);
+        }
+        long key = ((long)chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+        ChunkChanges chunkChanges = worldChanges.get(key);
+        if (chunkChanges == null) {
+            WorldServer nmsWorld = ((CraftWorld)world).getHandle();
+            chunkChanges = new ChunkChanges(world, nmsWorld.getChunkAt(chunkX, chunkZ));
+            worldChanges.put(key, chunkChanges);
+        }
+        lastChanges = chunkChanges;
+        return chunkChanges;
+    }
+
+    private static List<Player> getViewers(List<Player> players, Chunk chunk, int viewDistance) {
+        List<Player> viewers = new ArrayList<>();
+        for (Player player : players) {
+            int chunkX = player.getLocation().getBlockX() >> 4;
+            int chunkZ = player.getLocation().getBlockZ() >> 4;
+            if (Math.abs(chunkX - chunk.locX) <= viewDistance && Math.abs(chunkZ - chunk.locZ) <= viewDistance) {
+                viewers.add(player);
+            }
+        }
+        return viewers;
+    }
+
+
+    private static class ChunkChanges {
+        private final org.bukkit.World world;
+        private final Chunk chunk;
+        private short[] positions = new short[MAX_MULTI_CHANGES];
+        private int count;
+
+        private ChunkChanges(org.bukkit.World world, Chunk chunk) {
+            this.world = world;
+            this.chunk = chunk;
+        }
+
+        private void add(int x, int y, int z) {
+            if (count == positions.length) {
+                positions = Arrays.copyOf(positions, count * 2);
+            }
+            positions[count++] = (short)((x & 15) << 12 | (z & 15) << 8 | y);
+        }
+    }
+}
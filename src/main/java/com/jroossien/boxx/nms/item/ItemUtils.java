@@ -26,6 +26,7 @@
 package com.jroossien.boxx.nms.item;
 
 import com.jroossien.boxx.nms.annotation.NMSDependant;
+import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.BookMeta;
 import org.bukkit.inventory.meta.SkullMeta;
 
@@ -39,4 +40,7 @@ public interface ItemUtils {
 
     SkullMeta setSkullTexture(SkullMeta meta, String skinUrl);
     String getSkullTexture(SkullMeta meta);
+
+    ItemStack setTag(ItemStack item, String key, String value);
+    String getTag(ItemStack item, String key);
 }
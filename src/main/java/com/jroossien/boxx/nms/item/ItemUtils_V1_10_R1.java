@@ -30,8 +30,11 @@ import com.mojang.authlib.properties.Property;
 import com.jroossien.boxx.nms.util.NMSUtil_V1_10_R1;
 import com.jroossien.boxx.util.Utils;
 import net.minecraft.server.v1_10_R1.IChatBaseComponent;
+import net.minecraft.server.v1_10_R1.NBTTagCompound;
 import org.apache.commons.codec.binary.Base64;
+import org.bukkit.craftbukkit.v1_10_R1.inventory.CraftItemStack;
 import org.bukkit.craftbukkit.v1_10_R1.inventory.CraftMetaBook;
+import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.BookMeta;
 import org.bukkit.inventory.meta.SkullMeta;
 import org.json.simple.JSONObject;
@@ -43,6 +46,8 @@ import java.util.*;
 
 public class ItemUtils_V1_10_R1 implements ItemUtils {
 
+    private static final Field handleField = getHandleField();
+
     public BookMeta setBookPages(BookMeta meta, List<String> JSONPages) {
         if (meta == null) {
             return meta;
@@ -128,4 +133,67 @@ public class ItemUtils_V1_10_R1 implements ItemUtils {
         }
         return skinUrl;
     }
+
+
+    /**
+     * Set a string tag in the NBT of the item.
+     * Returns a copy of the item with the tag because Bukkit items don't have NBT.
+     */
+    @Override
+    public ItemStack setTag(ItemStack item, String key, String value) {
+        net.minecraft.server.v1_10_R1.ItemStack nmsItem = CraftItemStack.asNMSCopy(item);
+        if (nmsItem == null) {
+            return item;
+        }
+        NBTTagCompound tag = nmsItem.getTag();
+        if (tag == null) {
+            tag = new NBTTagCompound();
+            nmsItem.setTag(tag);
+        }
+        if (value == null) {
+            tag.remove(key);
+        } else {
+            tag.setString(key, value);
+        }
+        return CraftItemStack.asCraftMirror(nmsItem);
+    }
+
+    /**
+     * Get a string tag from the NBT of the item.
+     * For CraftBukkit items (like items from events and inventories) the tag is read directly from the handle without copying the item.
+     */
+    @Override
+    public String getTag(ItemStack item, String key) {
+        if (item == null) {
+            return null;
+        }
+        net.minecraft.server.v1_10_R1.ItemStack nmsItem;
+        if (item instanceof CraftItemStack && handleField != null) {
+            try {
+                nmsItem = (net.minecraft.server.v1_10_R1.ItemStack)handleField.get(item);
+            } catch (IllegalAccessException e) {
+                nmsItem = CraftItemStack.asNMSCopy(item);
+            }
+        } else {
+            nmsItem = CraftItemStack.asNMSCopy(item);
+        }
+        if (nmsItem == null) {
+            return null;
+        }
+        NBTTagCompound tag = nmsItem.getTag();
+        if (tag == null || !tag.hasKeyOfType(key, 8)) {
+            return null;
+        }
+        return tag.getString(key);
+    }
+
+    private static Field getHandleField() {
+        try {
+            Field field = CraftItemStack.class.getDeclaredField("handle");
+            field.setAccessible(true);
+            return field;
+        } catch (NoSuchFieldException e) {
+            return null;
+        }
+    }
 }
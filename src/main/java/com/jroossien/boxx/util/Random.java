@@ -26,15 +26,13 @@
 package com.jroossien.boxx.util;
 
 import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 
+/**
+ * Random utilities backed by {@link ThreadLocalRandom} so they can be used from any thread without contention.
+ */
 public class Random {
 
-    private static java.util.Random random;
-
-    static {
-        random = new java.util.Random();
-    }
-
     /**
      * Get a random number between start and end.
      *
@@ -43,7 +41,16 @@ public class Random {
      * @return random int
      */
     public static int Int(int start, int end) {
-        return start + random.nextInt(end - start + 1);
+        //Calculated as long so the full int range doesn't overflow.
+        long range = (long)end - start + 1;
+        if (range <= Integer.MAX_VALUE) {
+            return start + random().nextInt((int)range);
+        }
+        int value;
+        do {
+            value = random().nextInt();
+        } while (value < start || value > end);
+        return value;
     }
 
     /**
@@ -53,7 +60,26 @@ public class Random {
      * @return random int
      */
     public static int Int(int end) {
-        return random.nextInt(end);
+        return random().nextInt(end);
+    }
+
+    /**
+     * Get a random long between 0 and the number specified.
+     *
+     * @param end
+     * @return random long
+     */
+    public static long Long(long end) {
+        if (end <= 0) {
+            throw new IllegalArgumentException("The end must be positive.");
+        }
+        //Reject values from the last incomplete range so all values are equally likely.
+        long bits, value;
+        do {
+            bits = random().nextLong() >>> 1;
+            value = bits % end;
+        } while (bits - value + (end - 1) < 0);
+        return value;
     }
 
     /**
@@ -64,7 +90,7 @@ public class Random {
      * @return random float
      */
     public static float Float(float start, float end) {
-        return random.nextFloat() * (end - start) + start;
+        return random().nextFloat() * (end - start) + start;
     }
 
     /**
@@ -73,7 +99,7 @@ public class Random {
      * @return random float between 0-1
      */
     public static float Float() {
-        return random.nextFloat();
+        return random().nextFloat();
     }
 
     /**
@@ -84,7 +110,7 @@ public class Random {
      * @return random double
      */
     public static double Double(double start, double end) {
-        return random.nextDouble() * (end - start) + start;
+        return random().nextDouble() * (end - start) + start;
     }
 
     /**
@@ -93,7 +119,7 @@ public class Random {
      * @return random double between 0-1
      */
     public static double Double() {
-        return random.nextDouble();
+        return random().nextDouble();
     }
 
     /**
@@ -103,7 +129,7 @@ public class Random {
      * @return Random value out of array.
      */
     public static <T> T Item(T[] array) {
-        return array[Int(array.length - 1)];
+        return array[Int(array.length)];
     }
 
     /**
@@ -113,16 +139,20 @@ public class Random {
      * @return Random value out of list.
      */
     public static <T> T Item(List<T> list) {
-        return list.get(Int(list.size() - 1));
+        return list.get(Int(list.size()));
     }
 
     /**
-     * Get the raw random instance from java.util.
+     * Get the raw random instance for the current thread.
      *
-     * @return Random instance from java.util.
+     * @return ThreadLocalRandom instance of the current thread.
      */
     public static java.util.Random raw() {
-        return random;
+        return ThreadLocalRandom.current();
+    }
+
+    private static ThreadLocalRandom random() {
+        return ThreadLocalRandom.current();
     }
 
 }
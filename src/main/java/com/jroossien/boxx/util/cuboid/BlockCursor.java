@@ -0,0 +1,271 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Rojoss <http://jroossien.com>
+ * Copyright (c) 2016 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jroossien.boxx.util.cuboid;
+
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.util.Vector;
+
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Lazy cursor to walk through block coordinates without creating a Block or Vector for each step.
+ * The current position is exposed as primitive ints and only converted to a Block/Vector when requested.
+ * <p>
+ * Usage:
+ * <pre>
+ * BlockCursor cursor = cuboid.cursor(EnumSet.of(Material.CHEST));
+ * while (cursor.next()) {
+ *     int x = cursor.getX();
+ *     //...
+ * }
+ * </pre>
+ * To terminate early just break out of the loop or call {@link #stop()}.
+ */
+public abstract class BlockCursor {
+
+    protected final World world;
+    private final EnumSet<Material> filter;
+
+    protected int x;
+    protected int y;
+    protected int z;
+
+    private Material type;
+    private boolean done;
+
+    /**
+     * Create a new cursor for the given world.
+     *
+     * @param world The world to read blocks from.
+     * @param filter Only stop at blocks with one of these materials. (null to visit all blocks)
+     */
+    protected BlockCursor(World world, EnumSet<Material> filter) {
+        this.world = world;
+        this.filter = filter == null || filter.isEmpty() ? null : filter;
+    }
+
+    /**
+     * Move the x/y/z coordinates to the next position.
+     * The filter is applied by {@link #next()} so implementations only have to walk through the positions.
+     *
+     * @return true when the coordinates have been moved and false when there are no positions left.
+     */
+    protected abstract boolean step();
+
+    /**
+     * Move the cursor to the next block that matches the filter.
+     *
+     * @return true if the cursor is at a new block and false when there are no blocks left.
+     */
+    public boolean next() {
+        if (done) {
+            return false;
+        }
+        while (step()) {
+            type = null;
+            if (filter == null || filter.contains(getType())) {
+                return true;
+            }
+        }
+        done = true;
+        return false;
+    }
+
+    /**
+     * Stop the cursor.
+     * All calls to {@link #next()} will return false after this.
+     */
+    public void stop() {
+        done = true;
+    }
+
+    /**
+     * Check whether the cursor has finished or has been stopped.
+     *
+     * @return true when there are no more blocks to visit.
+     */
+    public boolean isDone() {
+        return done;
+    }
+
+
+    /**
+     * Get the world this cursor is walking through.
+     *
+     * @return The World
+     */
+    public World getWorld() {
+        return world;
+    }
+
+    /**
+     * Get the X coordinate of the current position.
+     *
+     * @return X coordinate
+     */
+    public int getX() {
+        return x;
+    }
+
+    /**
+     * Get the Y coordinate of the current position.
+     *
+     * @return Y coordinate
+     */
+    public int getY() {
+        return y;
+    }
+
+    /**
+     * Get the Z coordinate of the current position.
+     *
+     * @return Z coordinate
+     */
+    public int getZ() {
+        return z;
+    }
+
+    /**
+     * Get the X coordinate of the chunk the current position is in.
+     *
+     * @return Chunk X coordinate
+     */
+    public int getChunkX() {
+        return x >> 4;
+    }
+
+    /**
+     * Get the Z coordinate of the chunk the current position is in.
+     *
+     * @return Chunk Z coordinate
+     */
+    public int getChunkZ() {
+        return z >> 4;
+    }
+
+    /**
+     * Get the material of the block at the current position.
+     * This reads the type id directly from the world so no Block instance is created.
+     * The value is cached till the cursor moves.
+     *
+     * @return The Material at the current position.
+     */
+    @SuppressWarnings("deprecation")
+    public Material getType() {
+        if (type == null) {
+            type = Material.getMaterial(world.getBlockTypeIdAt(x, y, z));
+        }
+        return type;
+    }
+
+    /**
+     * Get the Block at the current position.
+     * This creates a new Block instance so only use it when you need it.
+     *
+     * @return The Block at the current position.
+     */
+    public Block getBlock() {
+        return world.getBlockAt(x, y, z);
+    }
+
+    /**
+     * Get the current position as a new Vector.
+     *
+     * @return Vector with the current position.
+     */
+    public Vector getVector() {
+        return new Vector(x, y, z);
+    }
+
+    /**
+     * Get the current position as a new Location.
+     *
+     * @return Location with the current position.
+     */
+    public Location getLocation() {
+        return new Location(world, x, y, z);
+    }
+
+
+    /**
+     * Get an iterator that creates a Block for each remaining position of this cursor.
+     * The iterator shares the state with this cursor.
+     *
+     * @return Block iterator.
+     */
+    public Iterator<Block> blocks() {
+        return new Iterator<Block>() {
+            private boolean ready;
+
+            @Override
+            public boolean hasNext() {
+                if (!ready) {
+                    ready = BlockCursor.this.next();
+                }
+                return ready;
+            }
+
+            @Override
+            public Block next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                ready = false;
+                return getBlock();
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+
+    /**
+     * Convert a material array to a filter for cursors.
+     *
+     * @param materials The materials to filter on.
+     * @return EnumSet with the materials or null when the array is null or empty.
+     */
+    public static EnumSet<Material> filter(Material... materials) {
+        if (materials == null || materials.length == 0) {
+            return null;
+        }
+        EnumSet<Material> filter = EnumSet.noneOf(Material.class);
+        for (Material material : materials) {
+            if (material != null) {
+                filter.add(material);
+            }
+        }
+        return filter.isEmpty() ? null : filter;
+    }
+}
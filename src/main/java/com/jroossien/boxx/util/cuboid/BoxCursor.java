@@ -0,0 +1,73 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Rojoss <http://jroossien.com>
+ * Copyright (c) 2016 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jroossien.boxx.util.cuboid;
+
+import org.bukkit.Material;
+import org.bukkit.World;
+
+import java.util.EnumSet;
+
+/**
+ * {@link BlockCursor} that walks through multiple boxes one after another.
+ * Each box is walked chunk by chunk like the {@link CuboidCursor}.
+ * The boxes should not overlap otherwise blocks will be visited multiple times.
+ */
+public class BoxCursor extends BlockCursor {
+
+    private final int[] boxes;
+    private final int count;
+    private int index = -1;
+    private CuboidCursor current;
+
+    /**
+     * Create a cursor for the given boxes.
+     *
+     * @param world The world to read blocks from.
+     * @param boxes Array with 6 values per box. (minX, minY, minZ, maxX, maxY, maxZ)
+     * @param count The amount of boxes in the array.
+     * @param filter Only stop at blocks with one of these materials. (null to visit all blocks)
+     */
+    public BoxCursor(World world, int[] boxes, int count, EnumSet<Material> filter) {
+        super(world, filter);
+        this.boxes = boxes;
+        this.count = count;
+    }
+
+    @Override
+    protected boolean step() {
+        while (current == null || !current.step()) {
+            if (++index >= count) {
+                return false;
+            }
+            int i = index * 6;
+            current = new CuboidCursor(world, boxes[i], boxes[i + 1], boxes[i + 2], boxes[i + 3], boxes[i + 4], boxes[i + 5], null);
+        }
+        x = current.x;
+        y = current.y;
+        z = current.z;
+        return true;
+    }
+}
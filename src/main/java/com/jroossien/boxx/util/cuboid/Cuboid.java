@@ -25,28 +25,42 @@
 
 package com.jroossien.boxx.util.cuboid;
 
+import com.google.common.base.Predicate;
+import com.jroossien.boxx.Boxx;
+import com.jroossien.boxx.util.Random;
 import org.bukkit.*;
 import org.bukkit.block.Block;
 import org.bukkit.configuration.serialization.ConfigurationSerializable;
 import org.bukkit.configuration.serialization.ConfigurationSerialization;
 import org.bukkit.entity.Entity;
+import org.bukkit.entity.EntityType;
 import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.WorldLoadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
 import org.bukkit.util.NumberConversions;
 import org.bukkit.util.Vector;
 
+import java.lang.ref.WeakReference;
 import java.util.*;
 
 /**
  * Cuboid area
  * Has a min/max position and a world.
  */
-public class Cuboid implements Iterable<Block>, Cloneable, ConfigurationSerializable {
+public class Cuboid implements Region, Iterable<Block>, Cloneable, ConfigurationSerializable {
 
     static {
         ConfigurationSerialization.registerClass(Cuboid.class);
     }
 
+    private static volatile int worldsVersion;
+
     private String worldName;
+    private WeakReference<World> worldRef;
+    private int worldVersion;
 
     private int minX;
     private int minY;
@@ -64,7 +78,7 @@ public class Cuboid implements Iterable<Block>, Cloneable, ConfigurationSerializ
      * @param cuboid A cuboid to clone the properties from.
      */
     public Cuboid(Cuboid cuboid) {
-        this(cuboid.getWorld(), cuboid.minX, cuboid.minY, cuboid.minZ, cuboid.maxX, cuboid.maxY, cuboid.maxZ);
+        this(cuboid.worldName, cuboid.minX, cuboid.minY, cuboid.minZ, cuboid.maxX, cuboid.maxY, cuboid.maxZ);
     }
 
     /**
@@ -627,6 +641,70 @@ public class Cuboid implements Iterable<Block>, Cloneable, ConfigurationSerializ
         return getWorld().getBlockAt(minX + offset.getBlockX(), minY + offset.getBlockY(), minZ + offset.getBlockZ());
     }
 
+    /**
+     * Get a random block position within this cuboid.
+     * Every block has the same chance to be picked.
+     *
+     * @return Vector with the block coordinates.
+     */
+    public Vector randomPoint() {
+        return new Vector(Random.Int(minX, maxX), Random.Int(minY, maxY), Random.Int(minZ, maxZ));
+    }
+
+    /**
+     * Get a random block within this cuboid.
+     * Every block has the same chance to be picked.
+     *
+     * @return Random block within this cuboid.
+     */
+    public Block randomBlock() {
+        return getWorld().getBlockAt(Random.Int(minX, maxX), Random.Int(minY, maxY), Random.Int(minZ, maxZ));
+    }
+
+    /**
+     * Get a random block within this cuboid that matches the predicate.
+     * This picks random blocks till one matches with up to 64 attempts.
+     *
+     * @param predicate The predicate the block has to match.
+     * @return Random block that matches or {@code null} when no block matched.
+     * @see #randomBlock(Predicate, int)
+     */
+    public Block randomBlock(Predicate<Block> predicate) {
+        return randomBlock(predicate, 64);
+    }
+
+    /**
+     * Get a random block within this cuboid that matches the predicate.
+     * This picks random blocks till one matches so the amount of block lookups is limited by the attempts.
+     * When only very few blocks match use a {@link #cursor(EnumSet)} instead.
+     *
+     * @param predicate The predicate the block has to match.
+     * @param attempts The maximum amount of blocks to check.
+     * @return Random block that matches or {@code null} when no block matched.
+     */
+    public Block randomBlock(Predicate<Block> predicate, int attempts) {
+        World world = getWorld();
+        for (int i = 0; i < attempts; i++) {
+            Block block = world.getBlockAt(Random.Int(minX, maxX), Random.Int(minY, maxY), Random.Int(minZ, maxZ));
+            if (predicate.apply(block)) {
+                return block;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get safe spawn locations within this cuboid that are spread out evenly.
+     * See {@link SpawnSampler} for more details.
+     *
+     * @param amount The amount of locations to get.
+     * @param minDistance The minimum horizontal distance between locations.
+     * @return List with spawn locations. (May contain less locations than the amount when there is not enough space)
+     */
+    public List<Location> getSpawnLocations(int amount, double minDistance) {
+        return SpawnSampler.sample(this, amount, minDistance);
+    }
+
 
 
     /**
@@ -642,57 +720,31 @@ public class Cuboid implements Iterable<Block>, Cloneable, ConfigurationSerializ
      * Get a List<Block> of all blocks within this cuboid that match any of the filter materials.
      * For example if you specify {Material.CHEST} it will return all chests inside the cuboid.
      * If you want to get a lot blocks separate don't just call this many times but call getBlocks() and then do the loop your self.
+     * For large cuboids use {@link #cursor(EnumSet)} instead which doesn't create a list with all blocks.
      *
      * @return List with all blocks or empty list if none found.
      */
     public List<Block> getBlocks(Material[] filter) {
-        List<Material> blockFilter = Arrays.asList(filter);
         List<Block> blockList = new ArrayList<Block>();
-        World world = getWorld();
-        if (world != null) {
-            Block block;
-            for (int x = minX; x <= maxX; x++) {
-                for (int y = minY; y <= this.maxY; y++) {
-                    for (int z = minZ; z <= maxZ; z++) {
-                        block = world.getBlockAt(x, y, z);
-                        if (blockFilter.isEmpty() || blockFilter.contains(block.getType())) {
-                            blockList.add(block);
-                        }
-                    }
-                }
-            }
+        BlockCursor cursor = cursor(BlockCursor.filter(filter));
+        while (cursor.next()) {
+            blockList.add(cursor.getBlock());
         }
         return blockList;
     }
 
     /**
-     * Get a List<Vector> of all block vectors at the edges.
+     * Get a List<Block> of all blocks at the edges.
+     * For large cuboids use {@link #outlineCursor()} instead which doesn't create a list with all blocks.
      *
-     * @return List with all edge vectors.
+     * @return List with all edge blocks.
      */
     public List<Block> getEdgeBlocks() {
         List<Block> blockList = new ArrayList<Block>();
-        World world = getWorld();
-
-        for (int x = minX; x <= maxX; x++) {
-            blockList.add(world.getBlockAt(x, minY, minZ));
-            blockList.add(world.getBlockAt(x, minY, maxZ));
-            blockList.add(world.getBlockAt(x, maxY, minZ));
-            blockList.add(world.getBlockAt(x, maxY, maxZ));
+        BlockCursor cursor = outlineCursor();
+        while (cursor.next()) {
+            blockList.add(cursor.getBlock());
         }
-        for (int y = minY; y < maxY; y++) {
-            blockList.add(world.getBlockAt(minX, y, minZ));
-            blockList.add(world.getBlockAt(minX, y, maxZ));
-            blockList.add(world.getBlockAt(maxX, y, minZ));
-            blockList.add(world.getBlockAt(maxX, y, maxZ));
-        }
-        for (int z = minZ; z < maxZ; z++) {
-            blockList.add(world.getBlockAt(minX, minY, z));
-            blockList.add(world.getBlockAt(minX, maxY, z));
-            blockList.add(world.getBlockAt(maxX, minY, z));
-            blockList.add(world.getBlockAt(maxX, maxY, z));
-        }
-
         return blockList;
     }
 
@@ -703,26 +755,10 @@ public class Cuboid implements Iterable<Block>, Cloneable, ConfigurationSerializ
      */
     public List<Vector> getEdgeVectors() {
         List<Vector> vectorList = new ArrayList<Vector>();
-
-        for (int x = minX; x <= maxX; x++) {
-            vectorList.add(new Vector(x, minY, minZ));
-            vectorList.add(new Vector(x, minY, maxZ));
-            vectorList.add(new Vector(x, maxY, minZ));
-            vectorList.add(new Vector(x, maxY, maxZ));
-        }
-        for (int y = minY; y < maxY; y++) {
-            vectorList.add(new Vector(minX, y, minZ));
-            vectorList.add(new Vector(minX, y, maxZ));
-            vectorList.add(new Vector(maxX, y, minZ));
-            vectorList.add(new Vector(maxX, y, maxZ));
+        BlockCursor cursor = outlineCursor();
+        while (cursor.next()) {
+            vectorList.add(new Vector(cursor.getX(), cursor.getY(), cursor.getZ()));
         }
-        for (int z = minZ; z < maxZ; z++) {
-            vectorList.add(new Vector(minX, minY, z));
-            vectorList.add(new Vector(minX, maxY, z));
-            vectorList.add(new Vector(maxX, minY, z));
-            vectorList.add(new Vector(maxX, maxY, z));
-        }
-
         return vectorList;
     }
 
@@ -743,23 +779,273 @@ public class Cuboid implements Iterable<Block>, Cloneable, ConfigurationSerializ
      * @return List with all vectors or empty list if none found.
      */
     public List<Vector> getVectors(Material[] filter) {
-        List<Material> blockFilter = Arrays.asList(filter);
         List<Vector> vectorList = new ArrayList<Vector>();
-        World world = getWorld();
-        if (world != null) {
-            Block block;
-            for (int x = minX; x <= maxX; x++) {
-                for (int y = minY; y <= this.maxY; y++) {
-                    for (int z = minZ; z <= maxZ; z++) {
-                        block = world.getBlockAt(x, y, z);
-                        if (blockFilter.isEmpty() || blockFilter.contains(block.getType())) {
-                            vectorList.add(new Vector(x, y, z));
-                        }
-                    }
+        BlockCursor cursor = cursor(BlockCursor.filter(filter));
+        while (cursor.next()) {
+            vectorList.add(new Vector(cursor.getX(), cursor.getY(), cursor.getZ()));
+        }
+        return vectorList;
+    }
+
+    /**
+     * Get a {@link BlockCursor} to walk through all blocks within this cuboid.
+     * The cursor doesn't create any Block or Vector instances unless you request them.
+     *
+     * @return Cursor for all blocks in this cuboid.
+     */
+    public CuboidCursor cursor() {
+        return cursor(null);
+    }
+
+    /**
+     * Get a {@link BlockCursor} to walk through all blocks within this cuboid that match any of the filter materials.
+     * The blocks are visited chunk by chunk and the cursor doesn't create any Block or Vector instances unless you request them.
+     *
+     * @param filter Only visit blocks with one of these materials. (null or empty to visit all blocks)
+     * @return Cursor for the blocks in this cuboid.
+     */
+    public CuboidCursor cursor(EnumSet<Material> filter) {
+        return new CuboidCursor(this, filter);
+    }
+
+    /**
+     * Get a {@link LongCoordSet} with the packed coordinates of all blocks within this cuboid.
+     *
+     * @return Set with all coordinates.
+     */
+    public LongCoordSet getVolumeCoords() {
+        LongCoordSet coords = new LongCoordSet(getVolume());
+        for (int x = minX; x <= maxX; x++) {
+            for (int y = minY; y <= maxY; y++) {
+                for (int z = minZ; z <= maxZ; z++) {
+                    coords.add(x, y, z);
                 }
             }
         }
-        return vectorList;
+        return coords;
+    }
+
+    /**
+     * Get a {@link LongCoordSet} with the packed coordinates of all blocks on the specified face(s).
+     * For example Dir.UP returns the top layer and Dir.X returns both the NORTH and SOUTH face.
+     *
+     * @param dir The direction of the face. {@link Cuboid.Dir}
+     * @return Set with the face coordinates.
+     */
+    public LongCoordSet getFaceCoords(Dir dir) {
+        return toCoords(faceCursor(dir));
+    }
+
+    /**
+     * Get a {@link LongCoordSet} with the packed coordinates of the 4 walls. (All faces except top and bottom)
+     *
+     * @return Set with the wall coordinates.
+     */
+    public LongCoordSet getWallCoords() {
+        return toCoords(wallCursor());
+    }
+
+    /**
+     * Get a {@link LongCoordSet} with the packed coordinates of all blocks at the edges.
+     *
+     * @return Set with the edge coordinates.
+     */
+    public LongCoordSet getEdgeCoords() {
+        return toCoords(outlineCursor());
+    }
+
+    private static LongCoordSet toCoords(BlockCursor cursor) {
+        LongCoordSet coords = new LongCoordSet();
+        while (cursor.next()) {
+            coords.add(cursor.getX(), cursor.getY(), cursor.getZ());
+        }
+        return coords;
+    }
+
+    /**
+     * Get a {@link BlockCursor} to walk through all blocks on the specified face(s).
+     * For example Dir.UP walks through the top layer and Dir.X through both the NORTH and SOUTH face.
+     *
+     * @param dir The direction of the face. {@link Cuboid.Dir}
+     * @return Cursor for the face blocks.
+     */
+    public BlockCursor faceCursor(Dir dir) {
+        return faceCursor(dir, null);
+    }
+
+    /**
+     * Get a {@link BlockCursor} to walk through all blocks on the specified face(s) that match any of the filter materials.
+     *
+     * @param dir The direction of the face. {@link Cuboid.Dir}
+     * @param filter Only visit blocks with one of these materials. (null or empty to visit all blocks)
+     * @return Cursor for the face blocks.
+     */
+    public BlockCursor faceCursor(Dir dir, EnumSet<Material> filter) {
+        List<int[]> boxes = new ArrayList<int[]>(2);
+        switch (dir) {
+            case X:
+                boxes.add(new int[] {maxX, minY, minZ, maxX, maxY, maxZ});
+                if (minX != maxX) {
+                    boxes.add(new int[] {minX, minY, minZ, minX, maxY, maxZ});
+                }
+                break;
+            case Y:
+                boxes.add(new int[] {minX, maxY, minZ, maxX, maxY, maxZ});
+                if (minY != maxY) {
+                    boxes.add(new int[] {minX, minY, minZ, maxX, minY, maxZ});
+                }
+                break;
+            case Z:
+                boxes.add(new int[] {minX, minY, maxZ, maxX, maxY, maxZ});
+                if (minZ != maxZ) {
+                    boxes.add(new int[] {minX, minY, minZ, maxX, maxY, minZ});
+                }
+                break;
+            case UP:
+                boxes.add(new int[] {minX, maxY, minZ, maxX, maxY, maxZ});
+                break;
+            case DOWN:
+                boxes.add(new int[] {minX, minY, minZ, maxX, minY, maxZ});
+                break;
+            case NORTH:
+                boxes.add(new int[] {maxX, minY, minZ, maxX, maxY, maxZ});
+                break;
+            case EAST:
+                boxes.add(new int[] {minX, minY, maxZ, maxX, maxY, maxZ});
+                break;
+            case SOUTH:
+                boxes.add(new int[] {minX, minY, minZ, minX, maxY, maxZ});
+                break;
+            case WEST:
+                boxes.add(new int[] {minX, minY, minZ, maxX, maxY, minZ});
+                break;
+        }
+        return boxCursor(boxes, filter);
+    }
+
+    /**
+     * Get a {@link BlockCursor} to walk through all blocks of the 4 walls. (All faces except top and bottom)
+     * Blocks where two walls meet are only visited once.
+     *
+     * @return Cursor for the wall blocks.
+     */
+    public BlockCursor wallCursor() {
+        return wallCursor(null);
+    }
+
+    /**
+     * Get a {@link BlockCursor} to walk through all blocks of the 4 walls that match any of the filter materials.
+     *
+     * @param filter Only visit blocks with one of these materials. (null or empty to visit all blocks)
+     * @return Cursor for the wall blocks.
+     */
+    public BlockCursor wallCursor(EnumSet<Material> filter) {
+        List<int[]> boxes = new ArrayList<int[]>(4);
+        boxes.add(new int[] {maxX, minY, minZ, maxX, maxY, maxZ});
+        if (minX != maxX) {
+            boxes.add(new int[] {minX, minY, minZ, minX, maxY, maxZ});
+        }
+        //The Z walls without the corners that are already part of the X walls.
+        boxes.add(new int[] {minX + 1, minY, maxZ, maxX - 1, maxY, maxZ});
+        if (minZ != maxZ) {
+            boxes.add(new int[] {minX + 1, minY, minZ, maxX - 1, maxY, minZ});
+        }
+        return boxCursor(boxes, filter);
+    }
+
+    /**
+     * Get a {@link BlockCursor} to walk through a hollow shell of this cuboid.
+     * The shell has the specified thickness on all 6 sides and the interior is never visited.
+     * When the thickness is larger than half the cuboid size all blocks are visited.
+     *
+     * @param thickness The thickness of the shell in blocks. (1 for just the outer layer)
+     * @return Cursor for the shell blocks.
+     */
+    public BlockCursor shellCursor(int thickness) {
+        return shellCursor(thickness, null);
+    }
+
+    /**
+     * Get a {@link BlockCursor} to walk through a hollow shell of this cuboid that match any of the filter materials.
+     *
+     * @param thickness The thickness of the shell in blocks. (1 for just the outer layer)
+     * @param filter Only visit blocks with one of these materials. (null or empty to visit all blocks)
+     * @return Cursor for the shell blocks.
+     * @see #shellCursor(int)
+     */
+    public BlockCursor shellCursor(int thickness, EnumSet<Material> filter) {
+        if (thickness < 1) {
+            throw new IllegalArgumentException("The shell thickness must be at least 1.");
+        }
+        int innerMinX = minX + thickness, innerMaxX = maxX - thickness;
+        int innerMinY = minY + thickness, innerMaxY = maxY - thickness;
+        int innerMinZ = minZ + thickness, innerMaxZ = maxZ - thickness;
+        List<int[]> boxes = new ArrayList<int[]>(6);
+        if (innerMinX > innerMaxX || innerMinY > innerMaxY || innerMinZ > innerMaxZ) {
+            boxes.add(new int[] {minX, minY, minZ, maxX, maxY, maxZ});
+            return boxCursor(boxes, filter);
+        }
+        //Bottom and top with the full X and Z size.
+        boxes.add(new int[] {minX, minY, minZ, maxX, innerMinY - 1, maxZ});
+        boxes.add(new int[] {minX, innerMaxY + 1, minZ, maxX, maxY, maxZ});
+        //X sides between the bottom and top.
+        boxes.add(new int[] {minX, innerMinY, minZ, innerMinX - 1, innerMaxY, maxZ});
+        boxes.add(new int[] {innerMaxX + 1, innerMinY, minZ, maxX, innerMaxY, maxZ});
+        //Z sides between the X sides.
+        boxes.add(new int[] {innerMinX, innerMinY, minZ, innerMaxX, innerMaxY, innerMinZ - 1});
+        boxes.add(new int[] {innerMinX, innerMinY, innerMaxZ + 1, innerMaxX, innerMaxY, maxZ});
+        return boxCursor(boxes, filter);
+    }
+
+    /**
+     * Get a {@link BlockCursor} to walk through all blocks at the 12 edges.
+     * Corner blocks are only visited once.
+     *
+     * @return Cursor for the edge blocks.
+     */
+    public BlockCursor outlineCursor() {
+        return outlineCursor(null);
+    }
+
+    /**
+     * Get a {@link BlockCursor} to walk through all blocks at the 12 edges that match any of the filter materials.
+     *
+     * @param filter Only visit blocks with one of these materials. (null or empty to visit all blocks)
+     * @return Cursor for the edge blocks.
+     */
+    public BlockCursor outlineCursor(EnumSet<Material> filter) {
+        int[] ys = minY == maxY ? new int[] {minY} : new int[] {minY, maxY};
+        int[] xs = minX == maxX ? new int[] {minX} : new int[] {minX, maxX};
+        int[] zs = minZ == maxZ ? new int[] {minZ} : new int[] {minZ, maxZ};
+        List<int[]> boxes = new ArrayList<int[]>(12);
+        //Edges along X include the corners, the other edges skip them.
+        for (int y : ys) {
+            for (int z : zs) {
+                boxes.add(new int[] {minX, y, z, maxX, y, z});
+            }
+        }
+        for (int x : xs) {
+            for (int z : zs) {
+                boxes.add(new int[] {x, minY + 1, z, x, maxY - 1, z});
+            }
+            for (int y : ys) {
+                boxes.add(new int[] {x, y, minZ + 1, x, y, maxZ - 1});
+            }
+        }
+        return boxCursor(boxes, filter);
+    }
+
+    private BlockCursor boxCursor(List<int[]> boxes, EnumSet<Material> filter) {
+        int[] values = new int[boxes.size() * 6];
+        int count = 0;
+        for (int[] box : boxes) {
+            if (box[0] > box[3] || box[1] > box[4] || box[2] > box[5]) {
+                continue;
+            }
+            System.arraycopy(box, 0, values, count * 6, 6);
+            count++;
+        }
+        return new BoxCursor(getWorld(), values, count, filter);
     }
 
     /**
@@ -781,20 +1067,173 @@ public class Cuboid implements Iterable<Block>, Cloneable, ConfigurationSerializ
     }
 
 
+    /**
+     * Get a list of all entities of the specified class within this cuboid.
+     * Only the loaded chunks that intersect this cuboid will be checked.
+     *
+     * @param type The entity class. (For example Monster.class)
+     * @return List of entities within this cuboid.
+     */
+    public <T extends Entity> List<T> getEntities(Class<T> type) {
+        List<T> entityList = new ArrayList<T>();
+        World world = getWorld();
+        for (int chunkX = minX >> 4; chunkX <= maxX >> 4; chunkX++) {
+            for (int chunkZ = minZ >> 4; chunkZ <= maxZ >> 4; chunkZ++) {
+                if (!world.isChunkLoaded(chunkX, chunkZ)) {
+                    continue;
+                }
+                for (Entity entity : world.getChunkAt(chunkX, chunkZ).getEntities()) {
+                    if (type.isInstance(entity) && contains(entity)) {
+                        entityList.add(type.cast(entity));
+                    }
+                }
+            }
+        }
+        return entityList;
+    }
+
+    /**
+     * Get a list of all entities with one of the specified types within this cuboid.
+     * Only the loaded chunks that intersect this cuboid will be checked.
+     *
+     * @param types The entity types to get. (No types to get all entities)
+     * @return List of entities within this cuboid.
+     */
+    public List<Entity> getEntities(EntityType... types) {
+        List<Entity> entityList = new ArrayList<Entity>();
+        EnumSet<EntityType> filter = toFilter(types);
+        World world = getWorld();
+        for (int chunkX = minX >> 4; chunkX <= maxX >> 4; chunkX++) {
+            for (int chunkZ = minZ >> 4; chunkZ <= maxZ >> 4; chunkZ++) {
+                if (!world.isChunkLoaded(chunkX, chunkZ)) {
+                    continue;
+                }
+                for (Entity entity : world.getChunkAt(chunkX, chunkZ).getEntities()) {
+                    if ((filter == null || filter.contains(entity.getType())) && contains(entity)) {
+                        entityList.add(entity);
+                    }
+                }
+            }
+        }
+        return entityList;
+    }
+
+    /**
+     * Count the entities with one of the specified types within this cuboid.
+     * No list with entities is created and it stops counting once the limit is reached.
+     *
+     * @param limit The maximum count. (For example the mob cap, use Integer.MAX_VALUE to count all)
+     * @param types The entity types to count. (No types to count all entities)
+     * @return The amount of entities found. (Never more than the limit)
+     */
+    public int countEntities(int limit, EntityType... types) {
+        EnumSet<EntityType> filter = toFilter(types);
+        World world = getWorld();
+        int count = 0;
+        for (int chunkX = minX >> 4; chunkX <= maxX >> 4; chunkX++) {
+            for (int chunkZ = minZ >> 4; chunkZ <= maxZ >> 4; chunkZ++) {
+                if (!world.isChunkLoaded(chunkX, chunkZ)) {
+                    continue;
+                }
+                for (Entity entity : world.getChunkAt(chunkX, chunkZ).getEntities()) {
+                    if ((filter == null || filter.contains(entity.getType())) && contains(entity)) {
+                        if (++count >= limit) {
+                            return count;
+                        }
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Count the entities of the specified class within this cuboid.
+     * No list with entities is created and it stops counting once the limit is reached.
+     *
+     * @param limit The maximum count. (For example the mob cap, use Integer.MAX_VALUE to count all)
+     * @param type The entity class. (For example Monster.class)
+     * @return The amount of entities found. (Never more than the limit)
+     */
+    public int countEntities(int limit, Class<? extends Entity> type) {
+        World world = getWorld();
+        int count = 0;
+        for (int chunkX = minX >> 4; chunkX <= maxX >> 4; chunkX++) {
+            for (int chunkZ = minZ >> 4; chunkZ <= maxZ >> 4; chunkZ++) {
+                if (!world.isChunkLoaded(chunkX, chunkZ)) {
+                    continue;
+                }
+                for (Entity entity : world.getChunkAt(chunkX, chunkZ).getEntities()) {
+                    if (type.isInstance(entity) && contains(entity)) {
+                        if (++count >= limit) {
+                            return count;
+                        }
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Check if there is at least one entity with one of the specified types within this cuboid.
+     *
+     * @param types The entity types to check for. (No types to check for any entity)
+     * @return true if there is at least one matching entity.
+     */
+    public boolean hasEntities(EntityType... types) {
+        return countEntities(1, types) > 0;
+    }
+
+    /**
+     * Check if there is at least one entity of the specified class within this cuboid.
+     *
+     * @param type The entity class. (For example Monster.class)
+     * @return true if there is at least one matching entity.
+     */
+    public boolean hasEntities(Class<? extends Entity> type) {
+        return countEntities(1, type) > 0;
+    }
+
+    private static EnumSet<EntityType> toFilter(EntityType[] types) {
+        if (types == null || types.length == 0) {
+            return null;
+        }
+        EnumSet<EntityType> filter = EnumSet.noneOf(EntityType.class);
+        Collections.addAll(filter, types);
+        return filter;
+    }
+
     /**
      * Try and get the world of this cuboid.
+     * The world is cached with a weak reference till a world gets loaded or unloaded.
      *
      * @return World of this cuboid if it's not null.
      * @throws IllegalStateException if the world is null.
      */
     public World getWorld() {
-        World world = Bukkit.getWorld(worldName);
+        World world = worldRef == null || worldVersion != worldsVersion ? null : worldRef.get();
         if (world == null) {
-            throw new IllegalStateException("'" + worldName + "' is not loaded or not a valid world.");
+            world = Bukkit.getWorld(worldName);
+            if (world == null) {
+                throw new IllegalStateException("'" + worldName + "' is not loaded or not a valid world.");
+            }
+            worldRef = new WeakReference<World>(world);
+            worldVersion = worldsVersion;
         }
         return world;
     }
 
+    /**
+     * Get the name of the world of this cuboid.
+     * Unlike {@link #getWorld()} this doesn't require the world to be loaded.
+     *
+     * @return The world name.
+     */
+    public String getWorldName() {
+        return worldName;
+    }
+
     /**
      * Set the world of this cuboid.
      *
@@ -803,9 +1242,32 @@ public class Cuboid implements Iterable<Block>, Cloneable, ConfigurationSerializ
     public void setWorld(World world) {
         if (world != null) {
             worldName = world.getName();
+            worldRef = new WeakReference<World>(world);
+            worldVersion = worldsVersion;
         }
     }
 
+    /**
+     * Get an immutable view of this cuboid with the current bounds.
+     * The view can be used as a key in maps and sets.
+     *
+     * @return New {@link CuboidView}
+     */
+    public CuboidView view() {
+        return new CuboidView(worldName, minX, minY, minZ, maxX, maxY, maxZ);
+    }
+
+    /**
+     * Get a copy of this cuboid.
+     * A cuboid is its own bounding box.
+     *
+     * @return a new Cuboid with the same bounds.
+     */
+    @Override
+    public Cuboid getBoundingBox() {
+        return new Cuboid(this);
+    }
+
 
     /**
      * Clone this cuboid by returning a NEW copy of this cuboid.
@@ -819,12 +1281,13 @@ public class Cuboid implements Iterable<Block>, Cloneable, ConfigurationSerializ
 
     /**
      * Get a block iterator to iterate through all blocks in this region.
+     * The blocks are created lazily while iterating.
      *
      * @return block iterator.
      */
     @Override
     public Iterator<Block> iterator() {
-        return this.getBlocks().listIterator();
+        return cursor().blocks();
     }
 
     /**
@@ -861,6 +1324,31 @@ public class Cuboid implements Iterable<Block>, Cloneable, ConfigurationSerializ
     }
 
 
+    /**
+     * Listener that invalidates the cached worlds of all cuboids when a world is loaded or unloaded.
+     */
+    public static class WorldListener implements Listener {
+
+        @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+        private void onUnload(WorldUnloadEvent event) {
+            worldsVersion++;
+            //The world is only removed after the event so getWorld() calls during the event cache it again.
+            //Invalidate once more when the world is gone.
+            Bukkit.getScheduler().runTask(Boxx.get(), new Runnable() {
+                @Override
+                public void run() {
+                    worldsVersion++;
+                }
+            });
+        }
+
+        @EventHandler(priority = EventPriority.MONITOR)
+        private void onLoad(WorldLoadEvent event) {
+            worldsVersion++;
+        }
+    }
+
+
     /**
      * A enum with directions used for modifying a cuboid.
      * UP: Y+
@@ -0,0 +1,141 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Rojoss <http://jroossien.com>
+ * Copyright (c) 2016 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jroossien.boxx.util.cuboid;
+
+import org.bukkit.Material;
+import org.bukkit.World;
+
+import java.util.EnumSet;
+
+/**
+ * {@link BlockCursor} that walks through all blocks inside a box.
+ * <p>
+ * The blocks are visited chunk by chunk so each chunk only has to be accessed once.
+ * Within a chunk it walks Y, Z, X (X being the inner loop) which matches the chunk section layout.
+ * <p>
+ * The bounds are copied when the cursor is created so modifying the cuboid afterwards won't affect the cursor.
+ */
+public class CuboidCursor extends BlockCursor {
+
+    private final int minX;
+    private final int minY;
+    private final int minZ;
+    private final int maxX;
+    private final int maxY;
+    private final int maxZ;
+
+    private final int minChunkX;
+    private final int maxChunkX;
+    private final int maxChunkZ;
+
+    private int chunkX;
+    private int chunkZ;
+    private int chunkMinX;
+    private int chunkMinZ;
+    private int chunkMaxX;
+    private int chunkMaxZ;
+
+    private boolean started;
+
+    /**
+     * Create a cursor for the given cuboid.
+     *
+     * @param cuboid The cuboid to walk through.
+     * @param filter Only stop at blocks with one of these materials. (null to visit all blocks)
+     */
+    public CuboidCursor(Cuboid cuboid, EnumSet<Material> filter) {
+        this(cuboid.getWorld(), cuboid.getMinX(), cuboid.getMinY(), cuboid.getMinZ(), cuboid.getMaxX(), cuboid.getMaxY(), cuboid.getMaxZ(), filter);
+    }
+
+    /**
+     * Create a cursor for the given box.
+     * The min values must be lower or equal to the max values.
+     *
+     * @param world The world to read blocks from.
+     * @param minX The minimum X coordinate.
+     * @param minY The minimum Y coordinate.
+     * @param minZ The minimum Z coordinate.
+     * @param maxX The maximum X coordinate.
+     * @param maxY The maximum Y coordinate.
+     * @param maxZ The maximum Z coordinate.
+     * @param filter Only stop at blocks with one of these materials. (null to visit all blocks)
+     */
+    public CuboidCursor(World world, int minX, int minY, int minZ, int maxX, int maxY, int maxZ, EnumSet<Material> filter) {
+        super(world, filter);
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.maxZ = maxZ;
+
+        minChunkX = minX >> 4;
+        maxChunkX = maxX >> 4;
+        maxChunkZ = maxZ >> 4;
+        chunkX = minChunkX;
+        chunkZ = minZ >> 4;
+    }
+
+    @Override
+    protected boolean step() {
+        if (!started) {
+            started = true;
+            enterChunk();
+            return true;
+        }
+        if (++x <= chunkMaxX) {
+            return true;
+        }
+        x = chunkMinX;
+        if (++z <= chunkMaxZ) {
+            return true;
+        }
+        z = chunkMinZ;
+        if (++y <= maxY) {
+            return true;
+        }
+
+        //Move to the next chunk column.
+        if (++chunkX > maxChunkX) {
+            chunkX = minChunkX;
+            if (++chunkZ > maxChunkZ) {
+                return false;
+            }
+        }
+        enterChunk();
+        return true;
+    }
+
+    private void enterChunk() {
+        chunkMinX = Math.max(minX, chunkX << 4);
+        chunkMaxX = Math.min(maxX, (chunkX << 4) + 15);
+        chunkMinZ = Math.max(minZ, chunkZ << 4);
+        chunkMaxZ = Math.min(maxZ, (chunkZ << 4) + 15);
+        x = chunkMinX;
+        y = minY;
+        z = chunkMinZ;
+    }
+}
@@ -0,0 +1,464 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Rojoss <http://jroossien.com>
+ * Copyright (c) 2016 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jroossien.boxx.util.cuboid;
+
+import org.bukkit.Location;
+
+import java.util.*;
+
+/**
+ * Spatial index to quickly find the cuboids at a location.
+ * <p>
+ * Cuboids are stored per world in a grid keyed by chunk coordinates.
+ * Cuboids that span more than {@link #MAX_CHUNK_CELLS} chunks are stored in a coarse grid with cells of 32x32 chunks instead,
+ * so huge regions don't fill up thousands of chunk cells.
+ * Cuboids that would still span more than {@link #MAX_COARSE_CELLS} coarse cells (like world border sized regions)
+ * aren't stored in a grid at all but in a list that is checked for every lookup. There are usually only a few of those.
+ * Point lookups only have to check the cuboids in a single cell of each grid and the huge cuboids.
+ * <p>
+ * The index stores a copy of the bounds of each cuboid.
+ * When a cuboid gets modified (for example with {@link Cuboid#expand(Cuboid.Dir, int)}) you have to call {@link #update(Cuboid)}.
+ * <p>
+ * This class is not thread safe.
+ */
+public class CuboidIndex {
+
+    public static final int MAX_CHUNK_CELLS = 256;
+    public static final int MAX_COARSE_CELLS = 1024;
+    private static final int CHUNK_SHIFT = 4;
+    private static final int COARSE_SHIFT = 9;
+
+    private final Map<String, WorldIndex> worlds = new HashMap<String, WorldIndex>();
+    private final Map<Cuboid, Entry> entries = new IdentityHashMap<Cuboid, Entry>();
+    private int stamp;
+
+
+    /**
+     * Add a cuboid to the index.
+     *
+     * @param cuboid The cuboid to add.
+     * @return true if the cuboid was added and false if it was already in the index.
+     */
+    public boolean add(Cuboid cuboid) {
+        if (entries.containsKey(cuboid)) {
+            return false;
+        }
+        Entry entry = new Entry(cuboid);
+        entries.put(cuboid, entry);
+        WorldIndex index = worlds.get(entry.world);
+        if (index == null) {
+            index = new WorldIndex();
+            worlds.put(entry.world, index);
+        }
+        index.insert(entry);
+        return true;
+    }
+
+    /**
+     * Remove a cuboid from the index.
+     *
+     * @param cuboid The cuboid to remove.
+     * @return true if the cuboid was removed and false if it wasn't in the index.
+     */
+    public boolean remove(Cuboid cuboid) {
+        Entry entry = entries.remove(cuboid);
+        if (entry == null) {
+            return false;
+        }
+        WorldIndex index = worlds.get(entry.world);
+        index.delete(entry);
+        if (index.isEmpty()) {
+            worlds.remove(entry.world);
+        }
+        return true;
+    }
+
+    /**
+     * Update the index for a cuboid that has been modified.
+     * If the cuboid isn't in the index yet it will be added.
+     *
+     * @param cuboid The cuboid that has been modified.
+     */
+    public void update(Cuboid cuboid) {
+        Entry entry = entries.get(cuboid);
+        if (entry != null && entry.matches(cuboid)) {
+            return;
+        }
+        remove(cuboid);
+        add(cuboid);
+    }
+
+    /**
+     * Check if the cuboid has been added to the index.
+     *
+     * @param cuboid The cuboid to check.
+     * @return true if the cuboid is in the index.
+     */
+    public boolean has(Cuboid cuboid) {
+        return entries.containsKey(cuboid);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public void clear() {
+        entries.clear();
+        worlds.clear();
+    }
+
+    /**
+     * Get all cuboids in the index.
+     *
+     * @return Unmodifiable collection with all cuboids.
+     */
+    public Collection<Cuboid> getCuboids() {
+        return Collections.unmodifiableSet(entries.keySet());
+    }
+
+
+    /**
+     * Get all cuboids that contain the specified location.
+     *
+     * @param location The location to check.
+     * @return List with cuboids. (Empty list if there are none)
+     */
+    public List<Cuboid> getContaining(Location location) {
+        List<Cuboid> result = new ArrayList<Cuboid>();
+        getContaining(location.getWorld().getName(), location.getBlockX(), location.getBlockY(), location.getBlockZ(), result);
+        return result;
+    }
+
+    /**
+     * Add all cuboids that contain the specified coordinates to the result collection.
+     * Use this to avoid creating a new list for every lookup.
+     *
+     * @param world The name of the world.
+     * @param x The X coordinate.
+     * @param y The Y coordinate.
+     * @param z The Z coordinate.
+     * @param result The collection to add the cuboids to.
+     * @return The amount of cuboids that have been added.
+     */
+    public int getContaining(String world, int x, int y, int z, Collection<? super Cuboid> result) {
+        WorldIndex index = worlds.get(world);
+        if (index == null) {
+            return 0;
+        }
+        int count = 0;
+        List<Entry> cell = index.chunkCells.get(key(x >> CHUNK_SHIFT, z >> CHUNK_SHIFT));
+        if (cell != null) {
+            for (int i = 0; i < cell.size(); i++) {
+                Entry entry = cell.get(i);
+                if (entry.contains(x, y, z)) {
+                    result.add(entry.cuboid);
+                    count++;
+                }
+            }
+        }
+        cell = index.coarseCells.get(key(x >> COARSE_SHIFT, z >> COARSE_SHIFT));
+        if (cell != null) {
+            for (int i = 0; i < cell.size(); i++) {
+                Entry entry = cell.get(i);
+                if (entry.contains(x, y, z)) {
+                    result.add(entry.cuboid);
+                    count++;
+                }
+            }
+        }
+        for (int i = 0; i < index.huge.size(); i++) {
+            Entry entry = index.huge.get(i);
+            if (entry.contains(x, y, z)) {
+                result.add(entry.cuboid);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Check if there is any cuboid that contains the specified coordinates.
+     *
+     * @param world The name of the world.
+     * @param x The X coordinate.
+     * @param y The Y coordinate.
+     * @param z The Z coordinate.
+     * @return true when at least one cuboid contains the coordinates.
+     */
+    public boolean isContained(String world, int x, int y, int z) {
+        WorldIndex index = worlds.get(world);
+        if (index == null) {
+            return false;
+        }
+        return anyContains(index.chunkCells.get(key(x >> CHUNK_SHIFT, z >> CHUNK_SHIFT)), x, y, z)
+                || anyContains(index.coarseCells.get(key(x >> COARSE_SHIFT, z >> COARSE_SHIFT)), x, y, z)
+                || anyContains(index.huge, x, y, z);
+    }
+
+    /**
+     * Get all cuboids that intersect with the specified cuboid.
+     * The cuboid itself will be included in the result if it's in the index.
+     *
+     * @param cuboid The cuboid to check for intersections.
+     * @return List with cuboids. (Empty list if there are none)
+     */
+    public List<Cuboid> getIntersecting(Cuboid cuboid) {
+        List<Cuboid> result = new ArrayList<Cuboid>();
+        WorldIndex index = worlds.get(cuboid.getWorldName());
+        if (index == null) {
+            return result;
+        }
+        Entry query = new Entry(cuboid);
+        int mark = ++stamp;
+        index.collectIntersecting(index.chunkCells, CHUNK_SHIFT, query, mark, result);
+        index.collectIntersecting(index.coarseCells, COARSE_SHIFT, query, mark, result);
+        index.collectIntersecting(index.huge, query, mark, result);
+        return result;
+    }
+
+    /**
+     * Get the cuboid that is closest to the specified location.
+     * If the location is inside a cuboid that cuboid will be returned.
+     *
+     * @param location The location to search from.
+     * @param maxDistance The maximum distance in blocks to search.
+     * @return The nearest cuboid or null if there is no cuboid within the max distance.
+     */
+    public Cuboid getNearest(Location location, int maxDistance) {
+        WorldIndex index = worlds.get(location.getWorld().getName());
+        if (index == null) {
+            return null;
+        }
+        int x = location.getBlockX();
+        int y = location.getBlockY();
+        int z = location.getBlockZ();
+
+        Nearest nearest = new Nearest((long)maxDistance * maxDistance);
+        index.searchNearest(index.chunkCells, CHUNK_SHIFT, x, y, z, maxDistance, nearest);
+        index.searchNearest(index.coarseCells, COARSE_SHIFT, x, y, z, maxDistance, nearest);
+        for (Entry entry : index.huge) {
+            long distance = entry.distanceSquared(x, y, z);
+            if (distance <= nearest.distance) {
+                nearest.distance = distance;
+                nearest.entry = entry;
+            }
+        }
+        return nearest.entry == null ? null : nearest.entry.cuboid;
+    }
+
+
+    private static boolean anyContains(List<Entry> cell, int x, int y, int z) {
+        if (cell == null) {
+            return false;
+        }
+        for (int i = 0; i < cell.size(); i++) {
+            if (cell.get(i).contains(x, y, z)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long key(int cellX, int cellZ) {
+        return ((long)cellX << 32) | (cellZ & 0xFFFFFFFFL);
+    }
+
+
+
+    private class WorldIndex {
+        private final LongObjectMap<List<Entry>> chunkCells = new LongObjectMap<List<Entry>>();
+        private final LongObjectMap<List<Entry>> coarseCells = new LongObjectMap<List<Entry>>();
+        //Entries that are too big for the coarse grid.
+        private final List<Entry> huge = new ArrayList<Entry>();
+
+        private void insert(Entry entry) {
+            if (entry.huge) {
+                huge.add(entry);
+                return;
+            }
+            LongObjectMap<List<Entry>> cells = entry.coarse ? coarseCells : chunkCells;
+            int shift = entry.coarse ? COARSE_SHIFT : CHUNK_SHIFT;
+            for (int cx = entry.minX >> shift; cx <= entry.maxX >> shift; cx++) {
+                for (int cz = entry.minZ >> shift; cz <= entry.maxZ >> shift; cz++) {
+                    long key = key(cx, cz);
+                    List<Entry> cell = cells.get(key);
+                    if (cell == null) {
+                        cell = new ArrayList<Entry>(2);
+                        cells.put(key, cell);
+                    }
+                    cell.add(entry);
+                }
+            }
+        }
+
+        private void delete(Entry entry) {
+            if (entry.huge) {
+                huge.remove(entry);
+                return;
+            }
+            LongObjectMap<List<Entry>> cells = entry.coarse ? coarseCells : chunkCells;
+            int shift = entry.coarse ? COARSE_SHIFT : CHUNK_SHIFT;
+            for (int cx = entry.minX >> shift; cx <= entry.maxX >> shift; cx++) {
+                for (int cz = entry.minZ >> shift; cz <= entry.maxZ >> shift; cz++) {
+                    long key = key(cx, cz);
+                    List<Entry> cell = cells.get(key);
+                    if (cell != null) {
+                        cell.remove(entry);
+                        if (cell.isEmpty()) {
+                            cells.remove(key);
+                        }
+                    }
+                }
+            }
+        }
+
+        private boolean isEmpty() {
+            return chunkCells.size() == 0 && coarseCells.size() == 0 && huge.isEmpty();
+        }
+
+        private void collectIntersecting(LongObjectMap<List<Entry>> cells, int shift, Entry query, int mark, List<Cuboid> result) {
+            long cellCount = (long)((query.maxX >> shift) - (query.minX >> shift) + 1) * ((query.maxZ >> shift) - (query.minZ >> shift) + 1);
+            if (cellCount > cells.size()) {
+                //The query covers more cells than there are in the index so just go through all cells.
+                for (int slot = 0; slot < cells.capacity(); slot++) {
+                    collectIntersecting(cells.valueAt(slot), query, mark, result);
+                }
+                return;
+            }
+            for (int cx = query.minX >> shift; cx <= query.maxX >> shift; cx++) {
+                for (int cz = query.minZ >> shift; cz <= query.maxZ >> shift; cz++) {
+                    collectIntersecting(cells.get(key(cx, cz)), query, mark, result);
+                }
+            }
+        }
+
+        private void collectIntersecting(List<Entry> cell, Entry query, int mark, List<Cuboid> result) {
+            if (cell == null) {
+                return;
+            }
+            for (int i = 0; i < cell.size(); i++) {
+                Entry entry = cell.get(i);
+                if (entry.mark != mark && entry.intersects(query)) {
+                    entry.mark = mark;
+                    result.add(entry.cuboid);
+                }
+            }
+        }
+
+        private void searchNearest(LongObjectMap<List<Entry>> cells, int shift, int x, int y, int z, int maxDistance, Nearest nearest) {
+            if (cells.size() == 0) {
+                return;
+            }
+            int cellSize = 1 << shift;
+            int centerX = x >> shift;
+            int centerZ = z >> shift;
+            int maxRing = (maxDistance >> shift) + 1;
+            for (int ring = 0; ring <= maxRing; ring++) {
+                //All cells in this ring are at least this far away horizontally.
+                long ringDistance = (long)Math.max(0, ring - 1) * cellSize;
+                if (ringDistance * ringDistance > nearest.distance) {
+                    return;
+                }
+                for (int cx = centerX - ring; cx <= centerX + ring; cx++) {
+                    boolean edgeX = cx == centerX - ring || cx == centerX + ring;
+                    for (int cz = centerZ - ring; cz <= centerZ + ring; cz += edgeX ? 1 : ring * 2) {
+                        List<Entry> cell = cells.get(key(cx, cz));
+                        if (cell != null) {
+                            for (int i = 0; i < cell.size(); i++) {
+                                Entry entry = cell.get(i);
+                                long distance = entry.distanceSquared(x, y, z);
+                                if (distance <= nearest.distance) {
+                                    nearest.distance = distance;
+                                    nearest.entry = entry;
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+
+    private static class Nearest {
+        private long distance;
+        private Entry entry;
+
+        private Nearest(long distance) {
+            this.distance = distance;
+        }
+    }
+
+
+    private static class Entry {
+        private final Cuboid cuboid;
+        private final String world;
+        private final int minX;
+        private final int minY;
+        private final int minZ;
+        private final int maxX;
+        private final int maxY;
+        private final int maxZ;
+        private final boolean coarse;
+        private final boolean huge;
+        private int mark;
+
+        private Entry(Cuboid cuboid) {
+            this.cuboid = cuboid;
+            world = cuboid.getWorldName();
+            minX = cuboid.getMinX();
+            minY = cuboid.getMinY();
+            minZ = cuboid.getMinZ();
+            maxX = cuboid.getMaxX();
+            maxY = cuboid.getMaxY();
+            maxZ = cuboid.getMaxZ();
+            long chunks = (long)((maxX >> CHUNK_SHIFT) - (minX >> CHUNK_SHIFT) + 1) * ((maxZ >> CHUNK_SHIFT) - (minZ >> CHUNK_SHIFT) + 1);
+            coarse = chunks > MAX_CHUNK_CELLS;
+            long coarseCells = (long)((maxX >> COARSE_SHIFT) - (minX >> COARSE_SHIFT) + 1) * ((maxZ >> COARSE_SHIFT) - (minZ >> COARSE_SHIFT) + 1);
+            huge = coarseCells > MAX_COARSE_CELLS;
+        }
+
+        private boolean matches(Cuboid cuboid) {
+            return world.equals(cuboid.getWorldName()) && minX == cuboid.getMinX() && minY == cuboid.getMinY() && minZ == cuboid.getMinZ()
+                    && maxX == cuboid.getMaxX() && maxY == cuboid.getMaxY() && maxZ == cuboid.getMaxZ();
+        }
+
+        private boolean contains(int x, int y, int z) {
+            return x >= minX && x <= maxX && y >= minY && y <= maxY && z >= minZ && z <= maxZ;
+        }
+
+        private boolean intersects(Entry other) {
+            return minX <= other.maxX && maxX >= other.minX && minY <= other.maxY && maxY >= other.minY && minZ <= other.maxZ && maxZ >= other.minZ;
+        }
+
+        private long distanceSquared(int x, int y, int z) {
+            long dx = Math.max(0, Math.max(minX - x, x - maxX));
+            long dy = Math.max(0, Math.max(minY - y, y - maxY));
+            long dz = Math.max(0, Math.max(minZ - z, z - maxZ));
+            return dx * dx + dy * dy + dz * dz;
+        }
+    }
+}
@@ -0,0 +1,582 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Rojoss <http://jroossien.com>
+ * Copyright (c) 2016 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jroossien.boxx.util.cuboid;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.configuration.serialization.ConfigurationSerializable;
+import org.bukkit.configuration.serialization.ConfigurationSerialization;
+import org.bukkit.util.NumberConversions;
+
+import java.util.*;
+
+/**
+ * Region made out of multiple cuboids in the same world.
+ * <p>
+ * Supports union ({@link #add(Cuboid)}), subtraction ({@link #subtract(Cuboid)}) and intersection ({@link #intersect(Cuboid)}).
+ * After each operation the region is normalized to a set of non overlapping boxes
+ * and adjacent boxes with the same size are merged along each axis.
+ * Because the boxes don't overlap the volume is exact and the cursor visits every block once.
+ * <p>
+ * Contains checks use an index of slabs along the X axis so only the boxes in a single slab have to be checked.
+ * The index is rebuilt after every operation so reading the set from multiple threads is safe as long as it isn't modified.
+ */
+public class CuboidSet implements Cloneable, ConfigurationSerializable {
+
+    static {
+        ConfigurationSerialization.registerClass(CuboidSet.class);
+    }
+
+    private static final int MIN_X = 0, MIN_Y = 1, MIN_Z = 2, MAX_X = 3, MAX_Y = 4, MAX_Z = 5;
+
+    private final String worldName;
+    private int[] boxes = new int[6 * 4];
+    private int count;
+
+    //Slab index for contains checks. (Rebuilt after every modification)
+    private int[] slabs = new int[0];
+    private int[][] slabBoxes = new int[0][];
+
+
+    /**
+     * Create an empty set for the specified world.
+     *
+     * @param worldName The name of the world.
+     */
+    public CuboidSet(String worldName) {
+        this.worldName = worldName;
+    }
+
+    /**
+     * Create a set with a single cuboid.
+     *
+     * @param cuboid The cuboid to add.
+     */
+    public CuboidSet(Cuboid cuboid) {
+        this(cuboid.getWorldName());
+        add(cuboid);
+    }
+
+    /**
+     * Create a copy of another set.
+     *
+     * @param set The set to copy.
+     */
+    public CuboidSet(CuboidSet set) {
+        worldName = set.worldName;
+        boxes = Arrays.copyOf(set.boxes, Math.max(6, set.count * 6));
+        count = set.count;
+        //The index arrays are never modified so they can be shared.
+        slabs = set.slabs;
+        slabBoxes = set.slabBoxes;
+    }
+
+    /**
+     * Create a set from a map like:
+     * [world:{worldname}, boxes:[minX,minY,minZ,maxX,maxY,maxZ,...]]
+     *
+     * @param map The map with all data
+     */
+    public CuboidSet(Map<String, Object> map) {
+        worldName = (String)map.get("world");
+        List<?> values = (List<?>)map.get("boxes");
+        for (int i = 0; i + 5 < values.size(); i += 6) {
+            //The boxes in the config may have been edited to overlap.
+            addDisjoint(new int[] {NumberConversions.toInt(values.get(i)), NumberConversions.toInt(values.get(i + 1)), NumberConversions.toInt(values.get(i + 2)),
+                    NumberConversions.toInt(values.get(i + 3)), NumberConversions.toInt(values.get(i + 4)), NumberConversions.toInt(values.get(i + 5))});
+        }
+        normalize();
+    }
+
+
+    /**
+     * Add the cuboid to this set. (Union)
+     *
+     * @param cuboid The cuboid to add.
+     * @return this instance
+     * @throws IllegalArgumentException when the cuboid is in a different world.
+     */
+    public CuboidSet add(Cuboid cuboid) {
+        checkWorld(cuboid.getWorldName());
+        addDisjoint(toBox(cuboid));
+        normalize();
+        return this;
+    }
+
+    /**
+     * Add all boxes of the other set to this set. (Union)
+     *
+     * @param set The set to add.
+     * @return this instance
+     * @throws IllegalArgumentException when the set is in a different world.
+     */
+    public CuboidSet add(CuboidSet set) {
+        checkWorld(set.worldName);
+        for (int i = 0; i < set.count; i++) {
+            addDisjoint(Arrays.copyOfRange(set.boxes, i * 6, i * 6 + 6));
+        }
+        normalize();
+        return this;
+    }
+
+    /**
+     * Remove the cuboid from this set. (Subtraction)
+     *
+     * @param cuboid The cuboid to remove.
+     * @return this instance
+     */
+    public CuboidSet subtract(Cuboid cuboid) {
+        if (worldName.equals(cuboid.getWorldName())) {
+            subtractBox(toBox(cuboid));
+            normalize();
+        }
+        return this;
+    }
+
+    /**
+     * Remove all boxes of the other set from this set. (Subtraction)
+     *
+     * @param set The set to remove.
+     * @return this instance
+     */
+    public CuboidSet subtract(CuboidSet set) {
+        if (worldName.equals(set.worldName)) {
+            for (int i = 0; i < set.count; i++) {
+                subtractBox(Arrays.copyOfRange(set.boxes, i * 6, i * 6 + 6));
+            }
+            normalize();
+        }
+        return this;
+    }
+
+    /**
+     * Only keep the parts of this set that are inside the cuboid. (Intersection)
+     *
+     * @param cuboid The cuboid to intersect with.
+     * @return this instance
+     */
+    public CuboidSet intersect(Cuboid cuboid) {
+        CuboidSet other = new CuboidSet(worldName);
+        if (worldName.equals(cuboid.getWorldName())) {
+            other.addBox(toBox(cuboid));
+        }
+        return intersect(other);
+    }
+
+    /**
+     * Only keep the parts of this set that are also in the other set. (Intersection)
+     *
+     * @param set The set to intersect with.
+     * @return this instance
+     */
+    public CuboidSet intersect(CuboidSet set) {
+        int[] prevBoxes = boxes;
+        int prevCount = count;
+        boxes = new int[6 * 4];
+        count = 0;
+        if (worldName.equals(set.worldName)) {
+            for (int i = 0; i < prevCount; i++) {
+                int a = i * 6;
+                for (int j = 0; j < set.count; j++) {
+                    int b = j * 6;
+                    int minX = Math.max(prevBoxes[a + MIN_X], set.boxes[b + MIN_X]);
+                    int minY = Math.max(prevBoxes[a + MIN_Y], set.boxes[b + MIN_Y]);
+                    int minZ = Math.max(prevBoxes[a + MIN_Z], set.boxes[b + MIN_Z]);
+                    int maxX = Math.min(prevBoxes[a + MAX_X], set.boxes[b + MAX_X]);
+                    int maxY = Math.min(prevBoxes[a + MAX_Y], set.boxes[b + MAX_Y]);
+                    int maxZ = Math.min(prevBoxes[a + MAX_Z], set.boxes[b + MAX_Z]);
+                    if (minX <= maxX && minY <= maxY && minZ <= maxZ) {
+                        addBox(minX, minY, minZ, maxX, maxY, maxZ);
+                    }
+                }
+            }
+        }
+        normalize();
+        return this;
+    }
+
+
+    /**
+     * Check if the set contains the given location.
+     *
+     * @param location The location that needs to be checked.
+     * @return true if it does and false if not.
+     */
+    public boolean contains(Location location) {
+        return location.getWorld().getName().equals(worldName) && contains(location.getBlockX(), location.getBlockY(), location.getBlockZ());
+    }
+
+    /**
+     * Check if the set contains the given coordinates.
+     * This does a binary search for the slab on the X axis and then checks the boxes in that slab.
+     *
+     * @param x The X position to check
+     * @param y The Y position to check
+     * @param z The Z position to check
+     * @return true if it does and false if not.
+     */
+    public boolean contains(int x, int y, int z) {
+        int[] slabs = this.slabs;
+        int[][] slabBoxes = this.slabBoxes;
+        int slab = Arrays.binarySearch(slabs, x);
+        if (slab < 0) {
+            slab = -slab - 2;
+        }
+        if (slab < 0 || slab >= slabBoxes.length) {
+            return false;
+        }
+        for (int box : slabBoxes[slab]) {
+            int i = box * 6;
+            if (y >= boxes[i + MIN_Y] && y <= boxes[i + MAX_Y] && z >= boxes[i + MIN_Z] && z <= boxes[i + MAX_Z]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Calculate the exact amount of blocks in this set.
+     *
+     * @return The volume in blocks.
+     */
+    public long getVolume() {
+        long volume = 0;
+        for (int i = 0; i < count * 6; i += 6) {
+            volume += (long)(boxes[i + MAX_X] - boxes[i + MIN_X] + 1) * (boxes[i + MAX_Y] - boxes[i + MIN_Y] + 1) * (boxes[i + MAX_Z] - boxes[i + MIN_Z] + 1);
+        }
+        return volume;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * Get the amount of non overlapping boxes this set consists of.
+     *
+     * @return Amount of boxes.
+     */
+    public int getBoxCount() {
+        return count;
+    }
+
+    /**
+     * Get all boxes in this set as new cuboids.
+     * The cuboids don't overlap each other.
+     *
+     * @return List with cuboids.
+     */
+    public List<Cuboid> getCuboids() {
+        List<Cuboid> cuboids = new ArrayList<Cuboid>(count);
+        for (int i = 0; i < count * 6; i += 6) {
+            cuboids.add(new Cuboid(worldName, boxes[i + MIN_X], boxes[i + MIN_Y], boxes[i + MIN_Z], boxes[i + MAX_X], boxes[i + MAX_Y], boxes[i + MAX_Z]));
+        }
+        return cuboids;
+    }
+
+    public String getWorldName() {
+        return worldName;
+    }
+
+    /**
+     * Try and get the world of this set.
+     *
+     * @return World of this set if it's not null.
+     * @throws IllegalStateException if the world is null.
+     */
+    public World getWorld() {
+        World world = Bukkit.getWorld(worldName);
+        if (world == null) {
+            throw new IllegalStateException("'" + worldName + "' is not loaded or not a valid world.");
+        }
+        return world;
+    }
+
+    /**
+     * Get a {@link BlockCursor} to walk through all blocks in this set.
+     * Every block is visited once.
+     *
+     * @return Cursor for all blocks in this set.
+     */
+    public BlockCursor cursor() {
+        return cursor(null);
+    }
+
+    /**
+     * Get a {@link BlockCursor} to walk through all blocks in this set that match any of the filter materials.
+     * Every block is visited once.
+     *
+     * @param filter Only visit blocks with one of these materials. (null or empty to visit all blocks)
+     * @return Cursor for the blocks in this set.
+     */
+    public BlockCursor cursor(EnumSet<Material> filter) {
+        return new BoxCursor(getWorld(), Arrays.copyOf(boxes, count * 6), count, filter);
+    }
+
+
+    @Override
+    public CuboidSet clone() {
+        return new CuboidSet(this);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count * 6; i += 6) {
+            builder.append(boxes[i + MIN_X]).append(',').append(boxes[i + MIN_Y]).append(',').append(boxes[i + MIN_Z]).append(':')
+                    .append(boxes[i + MAX_X]).append(',').append(boxes[i + MAX_Y]).append(',').append(boxes[i + MAX_Z]).append(';');
+        }
+        return builder.append(worldName).toString();
+    }
+
+    @Override
+    public Map<String, Object> serialize() {
+        Map<String, Object> data = new HashMap<String, Object>();
+        List<Integer> values = new ArrayList<Integer>(count * 6);
+        for (int i = 0; i < count * 6; i++) {
+            values.add(boxes[i]);
+        }
+        data.put("world", worldName);
+        data.put("boxes", values);
+        return data;
+    }
+
+    public static CuboidSet deserialize(Map<String, Object> args) {
+        return new CuboidSet(args);
+    }
+
+
+    private void checkWorld(String world) {
+        if (!worldName.equals(world)) {
+            throw new IllegalArgumentException("Can't combine regions from '" + world + "' with regions from '" + worldName + "'.");
+        }
+    }
+
+    private static int[] toBox(Cuboid cuboid) {
+        return new int[] {cuboid.getMinX(), cuboid.getMinY(), cuboid.getMinZ(), cuboid.getMaxX(), cuboid.getMaxY(), cuboid.getMaxZ()};
+    }
+
+    private void addBox(int... box) {
+        if ((count + 1) * 6 > boxes.length) {
+            boxes = Arrays.copyOf(boxes, boxes.length * 2);
+        }
+        System.arraycopy(box, 0, boxes, count * 6, 6);
+        count++;
+    }
+
+    private void addBox(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        addBox(new int[] {minX, minY, minZ, maxX, maxY, maxZ});
+    }
+
+    /**
+     * Add the parts of the box that aren't in this set yet so the boxes stay disjoint.
+     */
+    private void addDisjoint(int[] box) {
+        List<int[]> pieces = new ArrayList<int[]>();
+        pieces.add(box);
+        for (int i = 0; i < count && !pieces.isEmpty(); i++) {
+            int[] existing = Arrays.copyOfRange(boxes, i * 6, i * 6 + 6);
+            List<int[]> remaining = new ArrayList<int[]>();
+            for (int[] piece : pieces) {
+                split(piece, existing, remaining);
+            }
+            pieces = remaining;
+        }
+        for (int[] piece : pieces) {
+            addBox(piece);
+        }
+    }
+
+    private void subtractBox(int[] box) {
+        List<int[]> remaining = new ArrayList<int[]>();
+        for (int i = 0; i < count; i++) {
+            split(Arrays.copyOfRange(boxes, i * 6, i * 6 + 6), box, remaining);
+        }
+        boxes = new int[Math.max(6, remaining.size() * 6)];
+        count = 0;
+        for (int[] piece : remaining) {
+            addBox(piece);
+        }
+    }
+
+    /**
+     * Split box a in to the parts that are outside box b. (a - b)
+     * This results in up to 6 boxes which are added to the result.
+     */
+    private static void split(int[] a, int[] b, List<int[]> result) {
+        if (a[MIN_X] > b[MAX_X] || a[MAX_X] < b[MIN_X] || a[MIN_Y] > b[MAX_Y] || a[MAX_Y] < b[MIN_Y] || a[MIN_Z] > b[MAX_Z] || a[MAX_Z] < b[MIN_Z]) {
+            result.add(a);
+            return;
+        }
+        //Slices along X.
+        if (a[MIN_X] < b[MIN_X]) {
+            result.add(new int[] {a[MIN_X], a[MIN_Y], a[MIN_Z], b[MIN_X] - 1, a[MAX_Y], a[MAX_Z]});
+        }
+        if (a[MAX_X] > b[MAX_X]) {
+            result.add(new int[] {b[MAX_X] + 1, a[MIN_Y], a[MIN_Z], a[MAX_X], a[MAX_Y], a[MAX_Z]});
+        }
+        int minX = Math.max(a[MIN_X], b[MIN_X]);
+        int maxX = Math.min(a[MAX_X], b[MAX_X]);
+
+        //Slices along Y within the overlapping X range.
+        if (a[MIN_Y] < b[MIN_Y]) {
+            result.add(new int[] {minX, a[MIN_Y], a[MIN_Z], maxX, b[MIN_Y] - 1, a[MAX_Z]});
+        }
+        if (a[MAX_Y] > b[MAX_Y]) {
+            result.add(new int[] {minX, b[MAX_Y] + 1, a[MIN_Z], maxX, a[MAX_Y], a[MAX_Z]});
+        }
+        int minY = Math.max(a[MIN_Y], b[MIN_Y]);
+        int maxY = Math.min(a[MAX_Y], b[MAX_Y]);
+
+        //Slices along Z within the overlapping X and Y range.
+        if (a[MIN_Z] < b[MIN_Z]) {
+            result.add(new int[] {minX, minY, a[MIN_Z], maxX, maxY, b[MIN_Z] - 1});
+        }
+        if (a[MAX_Z] > b[MAX_Z]) {
+            result.add(new int[] {minX, minY, b[MAX_Z] + 1, maxX, maxY, a[MAX_Z]});
+        }
+    }
+
+    /**
+     * Merge adjacent boxes that have the same size on the other two axes and rebuild the index.
+     * Each axis is sorted and swept once, this is repeated till no boxes can be merged anymore.
+     */
+    private void normalize() {
+        int prevCount;
+        do {
+            prevCount = count;
+            mergeAxis(MIN_X);
+            mergeAxis(MIN_Y);
+            mergeAxis(MIN_Z);
+        } while (count < prevCount && count > 1);
+        buildIndex();
+    }
+
+    private void mergeAxis(final int axis) {
+        if (count < 2) {
+            return;
+        }
+        final int other1 = axis == MIN_X ? MIN_Y : MIN_X;
+        final int other2 = axis == MIN_Z ? MIN_Y : MIN_Z;
+
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer i1, Integer i2) {
+                int a = i1 * 6;
+                int b = i2 * 6;
+                int result = compareInt(boxes[a + other1], boxes[b + other1]);
+                if (result == 0) result = compareInt(boxes[a + other1 + 3], boxes[b + other1 + 3]);
+                if (result == 0) result = compareInt(boxes[a + other2], boxes[b + other2]);
+                if (result == 0) result = compareInt(boxes[a + other2 + 3], boxes[b + other2 + 3]);
+                if (result == 0) result = compareInt(boxes[a + axis], boxes[b + axis]);
+                return result;
+            }
+        });
+
+        int[] merged = new int[count * 6];
+        int mergedCount = 0;
+        for (int index : order) {
+            int i = index * 6;
+            if (mergedCount > 0) {
+                int prev = (mergedCount - 1) * 6;
+                if (merged[prev + other1] == boxes[i + other1] && merged[prev + other1 + 3] == boxes[i + other1 + 3]
+                        && merged[prev + other2] == boxes[i + other2] && merged[prev + other2 + 3] == boxes[i + other2 + 3]
+                        && merged[prev + axis + 3] + 1 == boxes[i + axis]) {
+                    merged[prev + axis + 3] = boxes[i + axis + 3];
+                    continue;
+                }
+            }
+            System.arraycopy(boxes, i, merged, mergedCount * 6, 6);
+            mergedCount++;
+        }
+        boxes = merged;
+        count = mergedCount;
+    }
+
+    private static int compareInt(int a, int b) {
+        return a < b ? -1 : (a == b ? 0 : 1);
+    }
+
+    /**
+     * Build the slab index.
+     * The X axis is split at every box edge and for each slab the boxes covering it are stored.
+     * The boxes are sorted by their minimum X and the slabs are filled in a single sweep.
+     */
+    private void buildIndex() {
+        if (count == 0) {
+            slabBoxes = new int[0][];
+            slabs = new int[0];
+            return;
+        }
+        int[] edges = new int[count * 2];
+        //Minimum X in the high bits and the box index in the low bits so sorting orders the boxes by minimum X.
+        long[] order = new long[count];
+        for (int i = 0; i < count; i++) {
+            edges[i * 2] = boxes[i * 6 + MIN_X];
+            edges[i * 2 + 1] = boxes[i * 6 + MAX_X] + 1;
+            order[i] = ((long)boxes[i * 6 + MIN_X] << 32) | i;
+        }
+        Arrays.sort(edges);
+        Arrays.sort(order);
+        int unique = 0;
+        for (int i = 0; i < edges.length; i++) {
+            if (i == 0 || edges[i] != edges[i - 1]) {
+                edges[unique++] = edges[i];
+            }
+        }
+        int[] slabStarts = Arrays.copyOf(edges, unique);
+
+        //The last edge is the end of the last slab.
+        int[][] slabContents = new int[unique - 1][];
+        int[] active = new int[count];
+        int activeCount = 0;
+        int next = 0;
+        for (int slab = 0; slab < unique - 1; slab++) {
+            int start = slabStarts[slab];
+            //Remove the boxes that ended before this slab.
+            int kept = 0;
+            for (int i = 0; i < activeCount; i++) {
+                if (boxes[active[i] * 6 + MAX_X] >= start) {
+                    active[kept++] = active[i];
+                }
+            }
+            activeCount = kept;
+            //Add the boxes that start at this slab.
+            while (next < count && (int)(order[next] >> 32) <= start) {
+                active[activeCount++] = (int)order[next++];
+            }
+            slabContents[slab] = Arrays.copyOf(active, activeCount);
+        }
+        slabBoxes = slabContents;
+        slabs = slabStarts;
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Rojoss <http://jroossien.com>
+ * Copyright (c) 2016 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jroossien.boxx.util.cuboid;
+
+/**
+ * Immutable view of a {@link Cuboid}.
+ * <p>
+ * Unlike a cuboid the bounds of a view can't change so it's safe to use as a key in maps and sets.
+ * The hash code is calculated once when the view is created.
+ * Use {@link Cuboid#view()} to create a view and {@link #toCuboid()} to get a modifiable cuboid again.
+ */
+public final class CuboidView {
+
+    private final String worldName;
+    private final int minX;
+    private final int minY;
+    private final int minZ;
+    private final int maxX;
+    private final int maxY;
+    private final int maxZ;
+    private final int hash;
+
+    /**
+     * Create a view based on a worldname and 6 integers. [x1,y2,z3 - x2,y2,z2]
+     *
+     * @param worldName The name of the World
+     * @param x1 X pos of Location 1
+     * @param y1 Y pos of Location 1
+     * @param z1 Z pos of Location 1
+     * @param x2 X pos of Location 2
+     * @param y2 Y pos of Location 2
+     * @param z2 Z pos of Location 2
+     */
+    public CuboidView(String worldName, int x1, int y1, int z1, int x2, int y2, int z2) {
+        this.worldName = worldName == null ? "" : worldName;
+        minX = Math.min(x1, x2);
+        minY = Math.min(y1, y2);
+        minZ = Math.min(z1, z2);
+        maxX = Math.max(x1, x2);
+        maxY = Math.max(y1, y2);
+        maxZ = Math.max(z1, z2);
+
+        int result = this.worldName.hashCode();
+        result = 31 * result + minX;
+        result = 31 * result + minY;
+        result = 31 * result + minZ;
+        result = 31 * result + maxX;
+        result = 31 * result + maxY;
+        result = 31 * result + maxZ;
+        hash = result;
+    }
+
+    public String getWorldName() {
+        return worldName;
+    }
+
+    public int getMinX() {
+        return minX;
+    }
+
+    public int getMinY() {
+        return minY;
+    }
+
+    public int getMinZ() {
+        return minZ;
+    }
+
+    public int getMaxX() {
+        return maxX;
+    }
+
+    public int getMaxY() {
+        return maxY;
+    }
+
+    public int getMaxZ() {
+        return maxZ;
+    }
+
+    /**
+     * Check if the view contains the given coordinates. x/y/z int.
+     *
+     * @param x The X position to check
+     * @param y The Y position to check
+     * @param z The Z position to check
+     * @return true if it does and false if not.
+     */
+    public boolean contains(int x, int y, int z) {
+        return x >= minX && x <= maxX && y >= minY && y <= maxY && z >= minZ && z <= maxZ;
+    }
+
+    /**
+     * Calculate the volume of the view. (width*length*height)
+     *
+     * @return The volume in blocks.
+     */
+    public long getVolume() {
+        return (long)(maxX - minX + 1) * (maxY - minY + 1) * (maxZ - minZ + 1);
+    }
+
+    /**
+     * Create a new modifiable {@link Cuboid} with the bounds of this view.
+     *
+     * @return New Cuboid
+     */
+    public Cuboid toCuboid() {
+        return new Cuboid(worldName, minX, minY, minZ, maxX, maxY, maxZ);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CuboidView)) {
+            return false;
+        }
+        CuboidView view = (CuboidView)o;
+        return hash == view.hash && minX == view.minX && minY == view.minY && minZ == view.minZ
+                && maxX == view.maxX && maxY == view.maxY && maxZ == view.maxZ && worldName.equals(view.worldName);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    /**
+     * Convert the view to a string.
+     * Uses the same syntax as {@link Cuboid#toString()}
+     *
+     * @return String with all view data.
+     */
+    @Override
+    public String toString() {
+        return minX + "," + minY + "," + minZ + ":" + maxX + "," + maxY + "," + maxZ + ":" + worldName;
+    }
+}
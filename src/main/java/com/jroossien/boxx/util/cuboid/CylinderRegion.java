@@ -0,0 +1,116 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Rojoss <http://jroossien.com>
+ * Copyright (c) 2016 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jroossien.boxx.util.cuboid;
+
+/**
+ * Vertical cylinder shaped region with an elliptic base.
+ * The shape is the same on every Y level so the scanline table only has a row per Z coordinate.
+ */
+public class CylinderRegion extends ScanlineRegion {
+
+    private final int centerX;
+    private final int centerZ;
+    private final double radiusX;
+    private final double radiusZ;
+
+    /**
+     * Create a cylinder region with a circular base.
+     *
+     * @param worldName The name of the world.
+     * @param centerX The X coordinate of the center.
+     * @param centerZ The Z coordinate of the center.
+     * @param minY The bottom Y coordinate.
+     * @param maxY The top Y coordinate.
+     * @param radius The radius of the cylinder.
+     * @throws IllegalArgumentException when the radius is negative or the region is too large.
+     */
+    public CylinderRegion(String worldName, int centerX, int centerZ, int minY, int maxY, double radius) {
+        this(worldName, centerX, centerZ, minY, maxY, radius, radius);
+    }
+
+    /**
+     * Create a cylinder region with an elliptic base.
+     *
+     * @param worldName The name of the world.
+     * @param centerX The X coordinate of the center.
+     * @param centerZ The Z coordinate of the center.
+     * @param minY The bottom Y coordinate.
+     * @param maxY The top Y coordinate.
+     * @param radiusX The radius on the X axis.
+     * @param radiusZ The radius on the Z axis.
+     * @throws IllegalArgumentException when one of the radii is negative or the region is too large.
+     */
+    public CylinderRegion(String worldName, int centerX, int centerZ, int minY, int maxY, double radiusX, double radiusZ) {
+        super(worldName);
+        if (radiusX < 0 || radiusZ < 0) {
+            throw new IllegalArgumentException("The radius can't be negative.");
+        }
+        this.centerX = centerX;
+        this.centerZ = centerZ;
+        this.radiusX = radiusX;
+        this.radiusZ = radiusZ;
+
+        minX = centerX - (int)radiusX;
+        maxX = centerX + (int)radiusX;
+        minZ = centerZ - (int)radiusZ;
+        maxZ = centerZ + (int)radiusZ;
+        this.minY = Math.min(minY, maxY);
+        this.maxY = Math.max(minY, maxY);
+        build(true);
+    }
+
+    @Override
+    protected void computeSpans(int y, int z, Spans spans) {
+        double dz = EllipsoidRegion.ratio(z - centerZ, radiusZ);
+        double remaining = 1 - dz * dz;
+        if (remaining < 0) {
+            return;
+        }
+        int dx = (int)(radiusX * Math.sqrt(remaining));
+        spans.add(centerX - dx, centerX + dx);
+    }
+
+    public int getCenterX() {
+        return centerX;
+    }
+
+    public int getCenterZ() {
+        return centerZ;
+    }
+
+    public double getRadiusX() {
+        return radiusX;
+    }
+
+    public double getRadiusZ() {
+        return radiusZ;
+    }
+
+    @Override
+    public String toString() {
+        return "cylinder:" + centerX + "," + centerZ + ":" + minY + "-" + maxY + ":" + radiusX + "," + radiusZ + ":" + worldName;
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Rojoss <http://jroossien.com>
+ * Copyright (c) 2016 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jroossien.boxx.util.cuboid;
+
+/**
+ * Ellipsoid shaped region with a radius for each axis.
+ * A block is inside when its offset from the center (dx/rx)^2 + (dy/ry)^2 + (dz/rz)^2 is at most 1.
+ */
+public class EllipsoidRegion extends ScanlineRegion {
+
+    private final int centerX;
+    private final int centerY;
+    private final int centerZ;
+    private final double radiusX;
+    private final double radiusY;
+    private final double radiusZ;
+
+    /**
+     * Create an ellipsoid region.
+     *
+     * @param worldName The name of the world.
+     * @param centerX The X coordinate of the center block.
+     * @param centerY The Y coordinate of the center block.
+     * @param centerZ The Z coordinate of the center block.
+     * @param radiusX The radius on the X axis.
+     * @param radiusY The radius on the Y axis.
+     * @param radiusZ The radius on the Z axis.
+     * @throws IllegalArgumentException when one of the radii is negative or the region is too large.
+     */
+    public EllipsoidRegion(String worldName, int centerX, int centerY, int centerZ, double radiusX, double radiusY, double radiusZ) {
+        super(worldName);
+        if (radiusX < 0 || radiusY < 0 || radiusZ < 0) {
+            throw new IllegalArgumentException("The radius can't be negative.");
+        }
+        this.centerX = centerX;
+        this.centerY = centerY;
+        this.centerZ = centerZ;
+        this.radiusX = radiusX;
+        this.radiusY = radiusY;
+        this.radiusZ = radiusZ;
+
+        minX = centerX - (int)radiusX;
+        minY = centerY - (int)radiusY;
+        minZ = centerZ - (int)radiusZ;
+        maxX = centerX + (int)radiusX;
+        maxY = centerY + (int)radiusY;
+        maxZ = centerZ + (int)radiusZ;
+        build(false);
+    }
+
+    @Override
+    protected void computeSpans(int y, int z, Spans spans) {
+        double dy = ratio(y - centerY, radiusY);
+        double dz = ratio(z - centerZ, radiusZ);
+        double remaining = 1 - dy * dy - dz * dz;
+        if (remaining < 0) {
+            return;
+        }
+        int dx = (int)(radiusX * Math.sqrt(remaining));
+        spans.add(centerX - dx, centerX + dx);
+    }
+
+    static double ratio(int offset, double radius) {
+        return offset == 0 ? 0 : offset / radius;
+    }
+
+    public int getCenterX() {
+        return centerX;
+    }
+
+    public int getCenterY() {
+        return centerY;
+    }
+
+    public int getCenterZ() {
+        return centerZ;
+    }
+
+    public double getRadiusX() {
+        return radiusX;
+    }
+
+    public double getRadiusY() {
+        return radiusY;
+    }
+
+    public double getRadiusZ() {
+        return radiusZ;
+    }
+
+    @Override
+    public String toString() {
+        return "ellipsoid:" + centerX + "," + centerY + "," + centerZ + ":" + radiusX + "," + radiusY + "," + radiusZ + ":" + worldName;
+    }
+}
@@ -0,0 +1,346 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Rojoss <http://jroossien.com>
+ * Copyright (c) 2016 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jroossien.boxx.util.cuboid;
+
+import org.bukkit.World;
+
+import java.util.Arrays;
+
+/**
+ * Set of block coordinates without boxing.
+ * <p>
+ * Each x/y/z coordinate is packed in to a single long (26 bits X, 26 bits Z and 12 bits Y) using {@link #pack(int, int, int)}.
+ * The longs are stored in an open addressing hash table with linear probing.
+ * <p>
+ * This class is not thread safe.
+ */
+public class LongCoordSet {
+
+    private static final int MIN_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.6f;
+    private static final long SIGN_BITS = (1L << 37) | (1L << 11);
+
+    //Zero is used to mark empty slots so it's tracked separately.
+    private long[] keys;
+    private boolean hasZero;
+    private int size;
+    private int threshold;
+    private int mask;
+
+    /**
+     * Create a new empty set.
+     */
+    public LongCoordSet() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * Create a new empty set that can hold the expected amount of coordinates without resizing.
+     *
+     * @param expectedSize The amount of coordinates expected to be added.
+     */
+    public LongCoordSet(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * LOAD_FACTOR < expectedSize && capacity < (1 << 30)) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    /**
+     * Create a copy of another set.
+     *
+     * @param other The set to copy.
+     */
+    public LongCoordSet(LongCoordSet other) {
+        keys = other.keys.clone();
+        hasZero = other.hasZero;
+        size = other.size;
+        threshold = other.threshold;
+        mask = other.mask;
+    }
+
+
+    /**
+     * Pack the coordinates in to a single long.
+     *
+     * @param x The X coordinate. (26 bits)
+     * @param y The Y coordinate. (12 bits)
+     * @param z The Z coordinate. (26 bits)
+     * @return The packed coordinates.
+     */
+    public static long pack(int x, int y, int z) {
+        return ((long)(x & 0x3FFFFFF) << 38) | ((long)(z & 0x3FFFFFF) << 12) | (long)(y & 0xFFF);
+    }
+
+    public static int unpackX(long key) {
+        return (int)(key >> 38);
+    }
+
+    public static int unpackY(long key) {
+        return (int)(key << 52 >> 52);
+    }
+
+    public static int unpackZ(long key) {
+        return (int)(key << 26 >> 38);
+    }
+
+
+    public boolean add(int x, int y, int z) {
+        return add(pack(x, y, z));
+    }
+
+    /**
+     * Add the packed coordinates to the set.
+     *
+     * @param key The packed coordinates.
+     * @return true if the set didn't contain the coordinates yet.
+     */
+    public boolean add(long key) {
+        if (key == 0) {
+            if (hasZero) {
+                return false;
+            }
+            hasZero = true;
+            size++;
+            return true;
+        }
+        int slot = index(key);
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        if (++size > threshold) {
+            allocate(keys.length << 1);
+        }
+        return true;
+    }
+
+    /**
+     * Add all coordinates of another set to this set.
+     *
+     * @param other The set to add.
+     * @return true if this set changed.
+     */
+    public boolean addAll(LongCoordSet other) {
+        boolean changed = false;
+        if (other.hasZero) {
+            changed = add(0L);
+        }
+        for (long key : other.keys) {
+            if (key != 0 && add(key)) {
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    public boolean contains(int x, int y, int z) {
+        return contains(pack(x, y, z));
+    }
+
+    /**
+     * Check whether the set contains the packed coordinates.
+     *
+     * @param key The packed coordinates.
+     * @return true if the set contains the coordinates.
+     */
+    public boolean contains(long key) {
+        if (key == 0) {
+            return hasZero;
+        }
+        int slot = index(key);
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    public boolean remove(int x, int y, int z) {
+        return remove(pack(x, y, z));
+    }
+
+    /**
+     * Remove the packed coordinates from the set.
+     *
+     * @param key The packed coordinates.
+     * @return true if the set contained the coordinates.
+     */
+    public boolean remove(long key) {
+        if (key == 0) {
+            if (!hasZero) {
+                return false;
+            }
+            hasZero = false;
+            size--;
+            return true;
+        }
+        int slot = index(key);
+        while (keys[slot] != key) {
+            if (keys[slot] == 0) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        size--;
+
+        //Shift following keys back so there are no gaps in probe sequences.
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (keys[next] != 0) {
+            int home = index(keys[next]);
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[gap] = 0;
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0);
+        hasZero = false;
+        size = 0;
+    }
+
+
+    /**
+     * Get all packed coordinates in a new array.
+     *
+     * @param sorted When true the array will be sorted which orders the coordinates by X, Z and then Y.
+     * @return Array with packed coordinates.
+     */
+    public long[] toArray(boolean sorted) {
+        long[] array = new long[size];
+        int i = 0;
+        if (hasZero) {
+            array[i++] = 0;
+        }
+        for (long key : keys) {
+            if (key != 0) {
+                array[i++] = key;
+            }
+        }
+        if (sorted) {
+            //Z and Y are stored as unsigned bits, flipping their sign bits makes negative values sort before positive values.
+            for (i = 0; i < array.length; i++) {
+                array[i] ^= SIGN_BITS;
+            }
+            Arrays.sort(array);
+            for (i = 0; i < array.length; i++) {
+                array[i] ^= SIGN_BITS;
+            }
+        }
+        return array;
+    }
+
+    /**
+     * Get a cursor to iterate through all coordinates without boxing.
+     * The cursor can not read blocks as it has no world, use {@link #cursor(World)} for that.
+     *
+     * @return {@link BlockCursor} for the coordinates in this set.
+     */
+    public BlockCursor cursor() {
+        return cursor(null);
+    }
+
+    /**
+     * Get a cursor to iterate through all coordinates without boxing.
+     * The set should not be modified while using the cursor.
+     *
+     * @param world The world used to get blocks and types from the cursor.
+     * @return {@link BlockCursor} for the coordinates in this set.
+     */
+    public BlockCursor cursor(World world) {
+        return new BlockCursor(world, null) {
+            private int slot = hasZero ? -2 : -1;
+
+            @Override
+            protected boolean step() {
+                if (slot == -2) {
+                    slot = -1;
+                    set(0L);
+                    return true;
+                }
+                while (++slot < keys.length) {
+                    if (keys[slot] != 0) {
+                        set(keys[slot]);
+                        return true;
+                    }
+                }
+                return false;
+            }
+
+            private void set(long key) {
+                x = unpackX(key);
+                y = unpackY(key);
+                z = unpackZ(key);
+            }
+        };
+    }
+
+
+    private int index(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int)key & mask;
+    }
+
+    private void allocate(int capacity) {
+        long[] old = keys;
+        keys = new long[capacity];
+        mask = capacity - 1;
+        threshold = (int)(capacity * LOAD_FACTOR);
+        if (old != null) {
+            for (long key : old) {
+                if (key != 0) {
+                    int slot = index(key);
+                    while (keys[slot] != 0) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = key;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,312 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Rojoss <http://jroossien.com>
+ * Copyright (c) 2016 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jroossien.boxx.util.cuboid;
+
+import com.jroossien.boxx.util.Pair;
+
+import java.util.*;
+
+/**
+ * Detects overlapping cuboids using sweep and prune along the X axis.
+ * <p>
+ * For a one time check of many cuboids use {@link #findOverlaps(Collection)}.
+ * It sorts the cuboids by their minimum X and sweeps through them while keeping a list of the cuboids that are still active.
+ * Only the active cuboids have to be compared on the Y and Z axis.
+ * <p>
+ * An instance can be used to insert cuboids one at a time with {@link #insert(Cuboid)}.
+ * The cuboids are kept sorted by minimum X together with the largest width so a query only has to check the range
+ * of cuboids that could possibly reach the new cuboid.
+ * Cuboids wider than {@value #MAX_SORTED_WIDTH} blocks on the X axis (like a plot covering the whole world)
+ * are kept in a separate list that is always checked so they don't widen the range of every query.
+ * <p>
+ * The detector stores a copy of the bounds when a cuboid is inserted.
+ * Cuboids are mutable so a cuboid that is resized after inserting it has to be removed and inserted again.
+ * <p>
+ * Cuboids overlap when they share at least one block. Cuboids in different worlds never overlap.
+ * This class is not thread safe.
+ */
+public class OverlapDetector {
+
+    private static final int MAX_SORTED_WIDTH = 1024;
+
+    private final Map<String, WorldEntries> worlds = new HashMap<String, WorldEntries>();
+
+
+    /**
+     * Find all pairs of overlapping cuboids in the collection.
+     *
+     * @param cuboids The cuboids to check.
+     * @return List with every overlapping pair once. (Empty list when nothing overlaps)
+     */
+    public static List<Pair<Cuboid, Cuboid>> findOverlaps(Collection<Cuboid> cuboids) {
+        List<Pair<Cuboid, Cuboid>> overlaps = new ArrayList<Pair<Cuboid, Cuboid>>();
+        Map<String, List<Cuboid>> perWorld = new HashMap<String, List<Cuboid>>();
+        for (Cuboid cuboid : cuboids) {
+            List<Cuboid> list = perWorld.get(cuboid.getWorldName());
+            if (list == null) {
+                list = new ArrayList<Cuboid>();
+                perWorld.put(cuboid.getWorldName(), list);
+            }
+            list.add(cuboid);
+        }
+        for (List<Cuboid> list : perWorld.values()) {
+            sweep(list, overlaps);
+        }
+        return overlaps;
+    }
+
+    private static void sweep(List<Cuboid> list, List<Pair<Cuboid, Cuboid>> overlaps) {
+        int size = list.size();
+        int[] bounds = new int[size * 6];
+        long[] order = new long[size];
+        for (int i = 0; i < size; i++) {
+            Cuboid cuboid = list.get(i);
+            setBounds(bounds, i, cuboid);
+            //Sort key with the min X in the high bits and the index in the low bits.
+            order[i] = ((long)cuboid.getMinX() << 32) | i;
+        }
+        Arrays.sort(order);
+
+        int[] active = new int[16];
+        int activeCount = 0;
+        for (long key : order) {
+            int index = (int)key;
+            int b = index * 6;
+            int minX = bounds[b];
+
+            int keep = 0;
+            for (int i = 0; i < activeCount; i++) {
+                int other = active[i];
+                int o = other * 6;
+                if (bounds[o + 3] < minX) {
+                    continue;
+                }
+                active[keep++] = other;
+                if (overlapsYZ(bounds, b, bounds, o)) {
+                    overlaps.add(new Pair<Cuboid, Cuboid>(list.get(other), list.get(index)));
+                }
+            }
+            activeCount = keep;
+
+            if (activeCount == active.length) {
+                active = Arrays.copyOf(active, active.length * 2);
+            }
+            active[activeCount++] = index;
+        }
+    }
+
+
+    /**
+     * Add a cuboid to the detector and get the cuboids it overlaps with.
+     * The cuboid is added even when it overlaps with other cuboids.
+     * Use {@link #getOverlapping(Cuboid)} to check a cuboid before adding it.
+     * The bounds are copied, when the cuboid is modified afterwards it has to be removed and inserted again.
+     *
+     * @param cuboid The cuboid to add.
+     * @return List with cuboids that overlap with the added cuboid. (Empty list when nothing overlaps)
+     */
+    public List<Cuboid> insert(Cuboid cuboid) {
+        List<Cuboid> overlapping = getOverlapping(cuboid);
+        WorldEntries entries = worlds.get(cuboid.getWorldName());
+        if (entries == null) {
+            entries = new WorldEntries();
+            worlds.put(cuboid.getWorldName(), entries);
+        }
+        entries.insert(cuboid);
+        return overlapping;
+    }
+
+    /**
+     * Remove a cuboid from the detector.
+     *
+     * @param cuboid The cuboid to remove. (Compared by reference)
+     * @return true if the cuboid was removed and false if it wasn't in the detector.
+     */
+    public boolean remove(Cuboid cuboid) {
+        WorldEntries entries = worlds.get(cuboid.getWorldName());
+        return entries != null && entries.remove(cuboid);
+    }
+
+    /**
+     * Get all cuboids in the detector that overlap with the given cuboid.
+     *
+     * @param cuboid The cuboid to check.
+     * @return List with cuboids that overlap. (Empty list when nothing overlaps)
+     */
+    public List<Cuboid> getOverlapping(Cuboid cuboid) {
+        List<Cuboid> overlapping = new ArrayList<Cuboid>();
+        WorldEntries entries = worlds.get(cuboid.getWorldName());
+        if (entries != null) {
+            entries.query(cuboid, overlapping);
+        }
+        return overlapping;
+    }
+
+    /**
+     * Check if the given cuboid overlaps with any cuboid in the detector.
+     *
+     * @param cuboid The cuboid to check.
+     * @return true when it overlaps with at least one cuboid.
+     */
+    public boolean overlaps(Cuboid cuboid) {
+        return !getOverlapping(cuboid).isEmpty();
+    }
+
+    /**
+     * Get the amount of cuboids in the detector.
+     *
+     * @return Amount of cuboids.
+     */
+    public int size() {
+        int size = 0;
+        for (WorldEntries entries : worlds.values()) {
+            size += entries.size + entries.wide.size();
+        }
+        return size;
+    }
+
+    /**
+     * Remove all cuboids from the detector.
+     */
+    public void clear() {
+        worlds.clear();
+    }
+
+
+    private static void setBounds(int[] bounds, int index, Cuboid cuboid) {
+        int i = index * 6;
+        bounds[i] = cuboid.getMinX();
+        bounds[i + 1] = cuboid.getMinY();
+        bounds[i + 2] = cuboid.getMinZ();
+        bounds[i + 3] = cuboid.getMaxX();
+        bounds[i + 4] = cuboid.getMaxY();
+        bounds[i + 5] = cuboid.getMaxZ();
+    }
+
+    private static boolean overlapsYZ(int[] a, int ai, int[] b, int bi) {
+        return a[ai + 1] <= b[bi + 4] && a[ai + 4] >= b[bi + 1] && a[ai + 2] <= b[bi + 5] && a[ai + 5] >= b[bi + 2];
+    }
+
+
+    /**
+     * Cuboids of a single world sorted by min X.
+     * The bounds are stored in a flat array with 6 values per cuboid in the same order.
+     * Wide cuboids are stored in a separate unsorted list with their own bounds.
+     */
+    private static class WorldEntries {
+        private Cuboid[] cuboids = new Cuboid[16];
+        private int[] bounds = new int[16 * 6];
+        private int size;
+        //Largest X size of the sorted cuboids. (Recalculated when the widest cuboid is removed)
+        private int maxWidth;
+        private final List<Cuboid> wide = new ArrayList<Cuboid>();
+        private final List<int[]> wideBounds = new ArrayList<int[]>();
+
+        private void insert(Cuboid cuboid) {
+            if (cuboid.getMaxX() - cuboid.getMinX() > MAX_SORTED_WIDTH) {
+                int[] box = new int[6];
+                setBounds(box, 0, cuboid);
+                wide.add(cuboid);
+                wideBounds.add(box);
+                return;
+            }
+            if (size == cuboids.length) {
+                cuboids = Arrays.copyOf(cuboids, size * 2);
+                bounds = Arrays.copyOf(bounds, size * 2 * 6);
+            }
+            int index = lowerBound(cuboid.getMinX() + 1);
+            System.arraycopy(cuboids, index, cuboids, index + 1, size - index);
+            System.arraycopy(bounds, index * 6, bounds, (index + 1) * 6, (size - index) * 6);
+            cuboids[index] = cuboid;
+            setBounds(bounds, index, cuboid);
+            size++;
+            maxWidth = Math.max(maxWidth, cuboid.getMaxX() - cuboid.getMinX());
+        }
+
+        private boolean remove(Cuboid cuboid) {
+            for (int i = 0; i < wide.size(); i++) {
+                if (wide.get(i) == cuboid) {
+                    wide.remove(i);
+                    wideBounds.remove(i);
+                    return true;
+                }
+            }
+            for (int i = 0; i < size; i++) {
+                if (cuboids[i] == cuboid) {
+                    int width = bounds[i * 6 + 3] - bounds[i * 6];
+                    System.arraycopy(cuboids, i + 1, cuboids, i, size - i - 1);
+                    System.arraycopy(bounds, (i + 1) * 6, bounds, i * 6, (size - i - 1) * 6);
+                    cuboids[--size] = null;
+                    if (width == maxWidth) {
+                        updateMaxWidth();
+                    }
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void updateMaxWidth() {
+            maxWidth = 0;
+            for (int i = 0; i < size; i++) {
+                maxWidth = Math.max(maxWidth, bounds[i * 6 + 3] - bounds[i * 6]);
+            }
+        }
+
+        private void query(Cuboid cuboid, List<Cuboid> result) {
+            int[] query = new int[6];
+            setBounds(query, 0, cuboid);
+            //Only cuboids with a min X between these values can reach the query cuboid on the X axis.
+            for (int i = lowerBound((int)Math.max(Integer.MIN_VALUE, (long)query[0] - maxWidth)); i < size && bounds[i * 6] <= query[3]; i++) {
+                int b = i * 6;
+                if (bounds[b + 3] >= query[0] && overlapsYZ(bounds, b, query, 0)) {
+                    result.add(cuboids[i]);
+                }
+            }
+            for (int i = 0; i < wide.size(); i++) {
+                int[] box = wideBounds.get(i);
+                if (box[0] <= query[3] && box[3] >= query[0] && overlapsYZ(box, 0, query, 0)) {
+                    result.add(wide.get(i));
+                }
+            }
+        }
+
+        /** Get the index of the first cuboid with a min X that is greater than or equal to the value. */
+        private int lowerBound(int minX) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (bounds[mid * 6] < minX) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
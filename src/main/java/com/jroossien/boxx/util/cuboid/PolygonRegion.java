@@ -0,0 +1,136 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Rojoss <http://jroossien.com>
+ * Copyright (c) 2016 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jroossien.boxx.util.cuboid;
+
+import java.util.Arrays;
+
+/**
+ * Polygon prism region.
+ * The polygon is defined by a list of X/Z points (block coordinates) and extruded from minY to maxY.
+ * Blocks on the edges of the polygon are always inside the region.
+ */
+public class PolygonRegion extends ScanlineRegion {
+
+    private static final double EPSILON = 1e-6;
+
+    private final int[] pointsX;
+    private final int[] pointsZ;
+    private double[] crossings = new double[8];
+
+    /**
+     * Create a polygon region.
+     *
+     * @param worldName The name of the world.
+     * @param pointsX The X coordinates of the points.
+     * @param pointsZ The Z coordinates of the points.
+     * @param minY The bottom Y coordinate.
+     * @param maxY The top Y coordinate.
+     * @throws IllegalArgumentException when there are no points, the arrays have a different length or the region is too large.
+     */
+    public PolygonRegion(String worldName, int[] pointsX, int[] pointsZ, int minY, int maxY) {
+        super(worldName);
+        if (pointsX.length == 0 || pointsX.length != pointsZ.length) {
+            throw new IllegalArgumentException("A polygon needs at least one point and the same amount of X and Z coordinates.");
+        }
+        this.pointsX = pointsX.clone();
+        this.pointsZ = pointsZ.clone();
+
+        minX = maxX = pointsX[0];
+        minZ = maxZ = pointsZ[0];
+        for (int i = 1; i < pointsX.length; i++) {
+            minX = Math.min(minX, pointsX[i]);
+            maxX = Math.max(maxX, pointsX[i]);
+            minZ = Math.min(minZ, pointsZ[i]);
+            maxZ = Math.max(maxZ, pointsZ[i]);
+        }
+        this.minY = Math.min(minY, maxY);
+        this.maxY = Math.max(minY, maxY);
+        build(true);
+        crossings = null;
+    }
+
+    @Override
+    protected void computeSpans(int y, int z, Spans spans) {
+        int count = 0;
+        for (int i = 0, j = pointsX.length - 1; i < pointsX.length; j = i++) {
+            int x1 = pointsX[j], z1 = pointsZ[j];
+            int x2 = pointsX[i], z2 = pointsZ[i];
+
+            //Blocks the edge passes through within this row. (Edges only touching the corner of a block are ignored)
+            if (z1 == z2) {
+                if (z1 == z) {
+                    spans.add(Math.min(x1, x2), Math.max(x1, x2));
+                }
+            } else {
+                double low = Math.max(Math.min(z1, z2), z - 0.5 + EPSILON);
+                double high = Math.min(Math.max(z1, z2), z + 0.5 - EPSILON);
+                if (low <= high) {
+                    double a = x1 + (low - z1) * (x2 - x1) / (z2 - z1);
+                    double b = x1 + (high - z1) * (x2 - x1) / (z2 - z1);
+                    spans.add((int)Math.ceil(Math.min(a, b) - 0.5 + EPSILON), (int)Math.floor(Math.max(a, b) + 0.5 - EPSILON));
+                }
+
+                //Interior crossings. (Half open so shared vertices are only counted once)
+                if (z >= Math.min(z1, z2) && z < Math.max(z1, z2)) {
+                    if (count == crossings.length) {
+                        crossings = Arrays.copyOf(crossings, count * 2);
+                    }
+                    crossings[count++] = x1 + (double)(z - z1) * (x2 - x1) / (z2 - z1);
+                }
+            }
+        }
+        Arrays.sort(crossings, 0, count);
+        for (int i = 0; i + 1 < count; i += 2) {
+            spans.add((int)Math.ceil(crossings[i]), (int)Math.floor(crossings[i + 1]));
+        }
+    }
+
+    /**
+     * @return The amount of points of the polygon.
+     */
+    public int getPointCount() {
+        return pointsX.length;
+    }
+
+    /**
+     * @return A copy of the X coordinates of the points.
+     */
+    public int[] getPointsX() {
+        return pointsX.clone();
+    }
+
+    /**
+     * @return A copy of the Z coordinates of the points.
+     */
+    public int[] getPointsZ() {
+        return pointsZ.clone();
+    }
+
+    @Override
+    public String toString() {
+        return "polygon:" + pointsX.length + ":" + minY + "-" + maxY + ":" + worldName;
+    }
+}
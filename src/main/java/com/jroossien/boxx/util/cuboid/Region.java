@@ -0,0 +1,106 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Rojoss <http://jroossien.com>
+ * Copyright (c) 2016 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jroossien.boxx.util.cuboid;
+
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+
+import java.util.EnumSet;
+
+/**
+ * A shape of blocks in a world.
+ * <p>
+ * Implemented by {@link Cuboid} and the shaped regions ({@link PolygonRegion}, {@link EllipsoidRegion}, {@link SphereRegion}
+ * and {@link CylinderRegion}) so they can all be used for cursors and edit jobs.
+ * The min and max values are the bounding box of the region.
+ */
+public interface Region {
+
+    String getWorldName();
+
+    /**
+     * Try and get the world of this region.
+     *
+     * @return World of this region.
+     * @throws IllegalStateException if the world is not loaded.
+     */
+    World getWorld();
+
+    int getMinX();
+    int getMinY();
+    int getMinZ();
+    int getMaxX();
+    int getMaxY();
+    int getMaxZ();
+
+    /**
+     * Get the amount of blocks in this region.
+     *
+     * @return The volume in blocks.
+     */
+    int getVolume();
+
+    /**
+     * Check if the region contains the given coordinates.
+     *
+     * @param x The X position to check
+     * @param y The Y position to check
+     * @param z The Z position to check
+     * @return true if it does and false if not.
+     */
+    boolean contains(int x, int y, int z);
+
+    /**
+     * Check if the region contains the given location.
+     *
+     * @param location The location that needs to be checked.
+     * @return true if it does and false if not.
+     */
+    boolean contains(Location location);
+
+    /**
+     * Get the smallest cuboid that contains the entire region.
+     *
+     * @return New cuboid with the bounds of this region.
+     */
+    Cuboid getBoundingBox();
+
+    /**
+     * Get a {@link BlockCursor} to walk through all blocks within this region.
+     *
+     * @return Cursor for all blocks in this region.
+     */
+    BlockCursor cursor();
+
+    /**
+     * Get a {@link BlockCursor} to walk through all blocks within this region that match any of the filter materials.
+     *
+     * @param filter Only visit blocks with one of these materials. (null or empty to visit all blocks)
+     * @return Cursor for the blocks in this region.
+     */
+    BlockCursor cursor(EnumSet<Material> filter);
+}
@@ -0,0 +1,270 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Rojoss <http://jroossien.com>
+ * Copyright (c) 2016 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jroossien.boxx.util.cuboid;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerMoveEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.player.PlayerTeleportEvent;
+
+import java.util.*;
+
+/**
+ * Fires {@link CuboidEnterEvent} and {@link CuboidLeaveEvent} for registered regions.
+ * <p>
+ * There is one move listener for all regions so plugins don't each have to check all their regions on every move.
+ * Moves within the same block are ignored, the candidate regions are looked up with a {@link CuboidIndex}
+ * and every player has a bitset with the regions they are in so only the difference has to be checked.
+ * <p>
+ * When a region is modified you have to call {@link #update(String)} to update the index.
+ */
+public class RegionTracker implements Listener {
+
+    private final CuboidIndex index = new CuboidIndex();
+    private final Map<String, Integer> slots = new HashMap<String, Integer>();
+    private final Map<Cuboid, Integer> cuboidSlots = new IdentityHashMap<Cuboid, Integer>();
+    private String[] ids = new String[16];
+    private Cuboid[] cuboids = new Cuboid[16];
+    private final BitSet freeSlots = new BitSet();
+    private int slotCount;
+
+    private final Map<UUID, BitSet> players = new HashMap<UUID, BitSet>();
+
+    //Reused for every move to avoid allocations.
+    private final List<Cuboid> found = new ArrayList<Cuboid>();
+    private final BitSet next = new BitSet();
+
+
+    /**
+     * Register a region so enter and leave events will be fired for it.
+     * Players that are already inside the region will get the enter event when they move.
+     *
+     * @param id The unique id for the region.
+     * @param cuboid The cuboid of the region.
+     * @throws IllegalArgumentException when the id or cuboid has already been registered.
+     */
+    public void register(String id, Cuboid cuboid) {
+        if (slots.containsKey(id)) {
+            throw new IllegalArgumentException("There is already a region registered with the id '" + id + "'.");
+        }
+        if (cuboidSlots.containsKey(cuboid)) {
+            throw new IllegalArgumentException("The cuboid has already been registered.");
+        }
+        int slot = freeSlots.nextSetBit(0);
+        if (slot < 0) {
+            slot = slotCount++;
+            if (slot >= ids.length) {
+                ids = Arrays.copyOf(ids, ids.length * 2);
+                cuboids = Arrays.copyOf(cuboids, cuboids.length * 2);
+            }
+        } else {
+            freeSlots.clear(slot);
+        }
+        ids[slot] = id;
+        cuboids[slot] = cuboid;
+        slots.put(id, slot);
+        cuboidSlots.put(cuboid, slot);
+        index.add(cuboid);
+    }
+
+    /**
+     * Unregister a region.
+     * No leave events will be fired for the players inside the region.
+     *
+     * @param id The id of the region.
+     * @return true if the region was unregistered and false if there was no region with the id.
+     */
+    public boolean unregister(String id) {
+        Integer slot = slots.remove(id);
+        if (slot == null) {
+            return false;
+        }
+        index.remove(cuboids[slot]);
+        cuboidSlots.remove(cuboids[slot]);
+        ids[slot] = null;
+        cuboids[slot] = null;
+        freeSlots.set(slot);
+        for (BitSet regions : players.values()) {
+            regions.clear(slot);
+        }
+        return true;
+    }
+
+    /**
+     * Update the index for a region that has been modified.
+     * The enter/leave events will be fired when the players move.
+     *
+     * @param id The id of the region.
+     */
+    public void update(String id) {
+        Integer slot = slots.get(id);
+        if (slot != null) {
+            index.update(cuboids[slot]);
+        }
+    }
+
+    /**
+     * Get the cuboid of a registered region.
+     *
+     * @param id The id of the region.
+     * @return The cuboid or null if there is no region with the id.
+     */
+    public Cuboid getCuboid(String id) {
+        Integer slot = slots.get(id);
+        return slot == null ? null : cuboids[slot];
+    }
+
+    /**
+     * Get the ids of all registered regions.
+     *
+     * @return Unmodifiable set with region ids.
+     */
+    public Set<String> getIds() {
+        return Collections.unmodifiableSet(slots.keySet());
+    }
+
+    /**
+     * Get the ids of all regions the player is currently in.
+     *
+     * @param player The player to get the regions from.
+     * @return List with region ids. (Empty list if the player isn't in any region)
+     */
+    public List<String> getRegions(Player player) {
+        List<String> regions = new ArrayList<String>();
+        BitSet current = players.get(player.getUniqueId());
+        if (current != null) {
+            for (int slot = current.nextSetBit(0); slot >= 0; slot = current.nextSetBit(slot + 1)) {
+                regions.add(ids[slot]);
+            }
+        }
+        return regions;
+    }
+
+    /**
+     * Check whether the player is currently in the specified region.
+     *
+     * @param player The player to check.
+     * @param id The id of the region.
+     * @return true if the player is in the region.
+     */
+    public boolean isInRegion(Player player, String id) {
+        Integer slot = slots.get(id);
+        BitSet current = players.get(player.getUniqueId());
+        return slot != null && current != null && current.get(slot);
+    }
+
+
+    /**
+     * Update the regions of the player for a move.
+     *
+     * @return false if one of the fired events got cancelled.
+     */
+    private boolean move(Player player, Location from, Location to, boolean cancellable) {
+        BitSet current = players.get(player.getUniqueId());
+        if (current == null) {
+            current = new BitSet();
+            players.put(player.getUniqueId(), current);
+        }
+
+        found.clear();
+        next.clear();
+        index.getContaining(to.getWorld().getName(), to.getBlockX(), to.getBlockY(), to.getBlockZ(), found);
+        for (int i = 0; i < found.size(); i++) {
+            next.set(cuboidSlots.get(found.get(i)));
+        }
+        if (next.equals(current)) {
+            return true;
+        }
+
+        //Copy the sets as event handlers may move players or modify regions.
+        BitSet prev = (BitSet)current.clone();
+        BitSet now = (BitSet)next.clone();
+        boolean cancelled = false;
+        for (int slot = prev.nextSetBit(0); slot >= 0; slot = prev.nextSetBit(slot + 1)) {
+            if (!now.get(slot) && ids[slot] != null) {
+                CuboidLeaveEvent event = new CuboidLeaveEvent(player, ids[slot], cuboids[slot], from, to);
+                Bukkit.getPluginManager().callEvent(event);
+                cancelled |= event.isCancelled();
+            }
+        }
+        for (int slot = now.nextSetBit(0); slot >= 0; slot = now.nextSetBit(slot + 1)) {
+            if (!prev.get(slot) && ids[slot] != null) {
+                CuboidEnterEvent event = new CuboidEnterEvent(player, ids[slot], cuboids[slot], from, to);
+                Bukkit.getPluginManager().callEvent(event);
+                cancelled |= event.isCancelled();
+            }
+        }
+        if (cancelled && cancellable) {
+            return false;
+        }
+        current.clear();
+        current.or(now);
+        return true;
+    }
+
+    private static boolean sameBlock(Location from, Location to) {
+        return from.getBlockX() == to.getBlockX() && from.getBlockY() == to.getBlockY() && from.getBlockZ() == to.getBlockZ() && from.getWorld() == to.getWorld();
+    }
+
+
+    @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
+    private void onMove(PlayerMoveEvent event) {
+        if (sameBlock(event.getFrom(), event.getTo()) || slotCount == 0) {
+            return;
+        }
+        if (!move(event.getPlayer(), event.getFrom(), event.getTo(), true)) {
+            event.setCancelled(true);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
+    private void onTeleport(PlayerTeleportEvent event) {
+        if (event.getTo() == null || sameBlock(event.getFrom(), event.getTo()) || slotCount == 0) {
+            return;
+        }
+        if (!move(event.getPlayer(), event.getFrom(), event.getTo(), true)) {
+            event.setCancelled(true);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    private void onJoin(PlayerJoinEvent event) {
+        if (slotCount > 0) {
+            move(event.getPlayer(), null, event.getPlayer().getLocation(), false);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    private void onQuit(PlayerQuitEvent event) {
+        players.remove(event.getPlayer().getUniqueId());
+    }
+}
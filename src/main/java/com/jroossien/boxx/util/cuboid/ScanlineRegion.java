@@ -0,0 +1,314 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Rojoss <http://jroossien.com>
+ * Copyright (c) 2016 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jroossien.boxx.util.cuboid;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+
+/**
+ * Base class for regions with a shape that is stored as a scanline table.
+ * <p>
+ * For each row (a Y and Z coordinate) the table has the ranges of X coordinates that are inside the region.
+ * For prisms (shapes that are the same on every Y level like polygons and cylinders) there is only a row per Z coordinate.
+ * The table is built once when the region is created so contains checks only have to check the spans of a single row
+ * and cursors walk through the spans without checking blocks outside of the region.
+ * <p>
+ * Subclasses set the bounds and then call {@link #build(boolean)} which calls {@link #computeSpans(int, int, Spans)} for each row.
+ * The Y bounds are clamped to the world height and regions with more than {@value #MAX_ROWS} rows can't be created.
+ */
+public abstract class ScanlineRegion implements Region {
+
+    /** Maximum amount of rows in the table. (A sphere with a radius of about 4000 blocks in a 256 block high world) */
+    public static final int MAX_ROWS = 1 << 21;
+
+    protected final String worldName;
+    protected int minX, minY, minZ, maxX, maxY, maxZ;
+
+    private boolean prism;
+    private int[] rowOffsets;
+    private int[] spans;
+    private int volume;
+
+    protected ScanlineRegion(String worldName) {
+        this.worldName = worldName;
+    }
+
+
+    /**
+     * Build the scanline table.
+     * This must be called by the subclass after setting the bounds.
+     *
+     * @param prism When true the shape is the same for every Y level and the spans are only computed once for each Z.
+     * @throws IllegalArgumentException when the region has more than {@link #MAX_ROWS} rows.
+     */
+    protected final void build(boolean prism) {
+        //The world map can only be read on the main thread, all worlds are 256 blocks high otherwise.
+        World world = Bukkit.isPrimaryThread() ? Bukkit.getWorld(worldName) : null;
+        minY = Math.max(0, minY);
+        maxY = Math.min((world == null ? 256 : world.getMaxHeight()) - 1, maxY);
+
+        this.prism = prism;
+        long totalRows = minY > maxY ? 0 : (prism ? 1 : (long)maxY - minY + 1) * ((long)maxZ - minZ + 1);
+        if (totalRows > MAX_ROWS) {
+            throw new IllegalArgumentException("The region is too large. (" + totalRows + " rows, the maximum is " + MAX_ROWS + ")");
+        }
+        int length = maxZ - minZ + 1;
+        int rows = (int)totalRows;
+        rowOffsets = new int[rows + 1];
+        Spans rowSpans = new Spans();
+        int[] table = new int[Math.max(2, rows * 2)];
+        int size = 0;
+        long blocks = 0;
+        for (int row = 0; row < rows; row++) {
+            rowSpans.clear();
+            computeSpans(prism ? minY : minY + row / length, minZ + row % length, rowSpans);
+            rowSpans.normalize(minX, maxX);
+            if (size + rowSpans.size > table.length) {
+                table = Arrays.copyOf(table, Math.max(table.length * 2, size + rowSpans.size));
+            }
+            System.arraycopy(rowSpans.values, 0, table, size, rowSpans.size);
+            for (int i = 0; i < rowSpans.size; i += 2) {
+                blocks += rowSpans.values[i + 1] - rowSpans.values[i] + 1;
+            }
+            size += rowSpans.size;
+            rowOffsets[row + 1] = size;
+        }
+        spans = Arrays.copyOf(table, size);
+        volume = (int)Math.min(Integer.MAX_VALUE, prism ? blocks * (maxY - minY + 1) : blocks);
+    }
+
+    /**
+     * Add the ranges of X coordinates that are inside the region for the given row.
+     * The spans may be added in any order and may overlap.
+     *
+     * @param y The Y coordinate of the row. (Always minY for prisms)
+     * @param z The Z coordinate of the row.
+     * @param spans The spans to add the ranges to.
+     */
+    protected abstract void computeSpans(int y, int z, Spans spans);
+
+
+    @Override
+    public boolean contains(int x, int y, int z) {
+        if (x < minX || x > maxX || y < minY || y > maxY || z < minZ || z > maxZ) {
+            return false;
+        }
+        int row = prism ? z - minZ : (y - minY) * (maxZ - minZ + 1) + (z - minZ);
+        for (int i = rowOffsets[row]; i < rowOffsets[row + 1]; i += 2) {
+            if (x < spans[i]) {
+                return false;
+            }
+            if (x <= spans[i + 1]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean contains(Location location) {
+        return location.getWorld().getName().equals(worldName) && contains(location.getBlockX(), location.getBlockY(), location.getBlockZ());
+    }
+
+    @Override
+    public int getVolume() {
+        return volume;
+    }
+
+    @Override
+    public Cuboid getBoundingBox() {
+        return new Cuboid(worldName, minX, minY, minZ, maxX, maxY, maxZ);
+    }
+
+    @Override
+    public BlockCursor cursor() {
+        return cursor(null);
+    }
+
+    @Override
+    public BlockCursor cursor(EnumSet<Material> filter) {
+        return new ScanlineCursor(getWorld(), filter);
+    }
+
+    @Override
+    public String getWorldName() {
+        return worldName;
+    }
+
+    @Override
+    public World getWorld() {
+        World world = Bukkit.getWorld(worldName);
+        if (world == null) {
+            throw new IllegalStateException("'" + worldName + "' is not loaded or not a valid world.");
+        }
+        return world;
+    }
+
+    @Override
+    public int getMinX() {
+        return minX;
+    }
+
+    @Override
+    public int getMinY() {
+        return minY;
+    }
+
+    @Override
+    public int getMinZ() {
+        return minZ;
+    }
+
+    @Override
+    public int getMaxX() {
+        return maxX;
+    }
+
+    @Override
+    public int getMaxY() {
+        return maxY;
+    }
+
+    @Override
+    public int getMaxZ() {
+        return maxZ;
+    }
+
+
+    /**
+     * List of X ranges (start and end inclusive) for a single row.
+     */
+    protected static final class Spans {
+        private int[] values = new int[8];
+        private int size;
+
+        /**
+         * Add a range of X coordinates.
+         *
+         * @param startX The first X coordinate.
+         * @param endX The last X coordinate. (Inclusive)
+         */
+        public void add(int startX, int endX) {
+            if (startX > endX) {
+                return;
+            }
+            if (size + 2 > values.length) {
+                values = Arrays.copyOf(values, values.length * 2);
+            }
+            values[size++] = startX;
+            values[size++] = endX;
+        }
+
+        private void clear() {
+            size = 0;
+        }
+
+        /**
+         * Clip the spans to the bounds, sort them and merge overlapping and adjacent spans.
+         */
+        private void normalize(int minX, int maxX) {
+            //Insertion sort by start as rows only have a couple spans.
+            for (int i = 2; i < size; i += 2) {
+                int start = values[i];
+                int end = values[i + 1];
+                int j = i - 2;
+                while (j >= 0 && values[j] > start) {
+                    values[j + 2] = values[j];
+                    values[j + 3] = values[j + 1];
+                    j -= 2;
+                }
+                values[j + 2] = start;
+                values[j + 3] = end;
+            }
+            int merged = 0;
+            for (int i = 0; i < size; i += 2) {
+                int start = Math.max(minX, values[i]);
+                int end = Math.min(maxX, values[i + 1]);
+                if (start > end) {
+                    continue;
+                }
+                if (merged > 0 && start <= values[merged - 1] + 1) {
+                    values[merged - 1] = Math.max(values[merged - 1], end);
+                } else {
+                    values[merged++] = start;
+                    values[merged++] = end;
+                }
+            }
+            size = merged;
+        }
+    }
+
+
+    /**
+     * Cursor that walks through the spans row by row. (Y, then Z, then X)
+     */
+    private class ScanlineCursor extends BlockCursor {
+        private final int length = maxZ - minZ + 1;
+        private int row = -1;
+        private int span;
+        private int spanEnd;
+
+        private ScanlineCursor(World world, EnumSet<Material> filter) {
+            super(world, filter);
+            y = minY;
+        }
+
+        @Override
+        protected boolean step() {
+            if (row >= 0 && x < spans[span + 1]) {
+                x++;
+                return true;
+            }
+            if (row >= 0) {
+                span += 2;
+            }
+            while (row < 0 || span >= spanEnd) {
+                row++;
+                if (row >= rowOffsets.length - 1) {
+                    if (!prism || y >= maxY) {
+                        return false;
+                    }
+                    //Next Y level of the prism.
+                    y++;
+                    row = 0;
+                }
+                span = rowOffsets[row];
+                spanEnd = rowOffsets[row + 1];
+                z = minZ + row % length;
+                if (!prism) {
+                    y = minY + row / length;
+                }
+            }
+            x = spans[span];
+            return true;
+        }
+    }
+}
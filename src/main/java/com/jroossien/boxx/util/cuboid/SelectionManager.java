@@ -27,33 +27,112 @@ package com.jroossien.boxx.util.cuboid;
 
 import com.jroossien.boxx.messages.Msg;
 import com.jroossien.boxx.messages.Param;
-import com.jroossien.boxx.util.ItemUtil;
+import com.jroossien.boxx.nms.NMS;
 import com.jroossien.boxx.util.item.EItem;
+import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.Material;
-import org.bukkit.Particle;
+import org.bukkit.World;
+import org.bukkit.block.Block;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.block.Action;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
 import org.bukkit.event.player.PlayerInteractEvent;
-
-import java.util.HashMap;
-import java.util.Map;
-import java.util.UUID;
-
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerLoginEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitRunnable;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps track of the selections of players.
+ * <p>
+ * The selection wand can select different {@link SelectionShape}s. (Sneak and right click air to switch)
+ * Use {@link #getRegion(Player)} to get the selected {@link Region} for any shape.
+ * <p>
+ * Selections are stored in a concurrent map so they can be read from async threads (like chat input handlers).
+ * Reading a selection never creates an entry for the player.
+ * Selections are removed when the player quits.
+ * Selections of players that aren't online (for example loaded on login when the login failed afterwards)
+ * are removed once they haven't been used for the idle time.
+ * <p>
+ * When a persistence folder is set, selections are saved to a small binary file per player when they are removed
+ * and loaded again when the player logs in.
+ * The file is read async on login and the worlds of the locations are resolved on the main thread when the player joins.
+ */
 public class SelectionManager {
 
+    private static final int FILE_VERSION = 2;
+
     private static SelectionManager instance;
     private SelectionListener listener;
-    private EItem basicWand = new EItem(Material.STONE_AXE).setGlowing(true).addItemFlags().setName("&6&lSelection Wand");
-
-    Map<UUID, SelectionData> selections = new HashMap<UUID, SelectionData>();
-    SelectionData globalSelection = new SelectionData();
+    private final Map<String, Wand> wands = new HashMap<String, Wand>();
+    private final EnumSet<Material> wandMaterials = EnumSet.noneOf(Material.class);
+    private final Wand selectionWand;
+
+    final ConcurrentHashMap<UUID, SelectionData> selections = new ConcurrentHashMap<UUID, SelectionData>();
+    //Unique revision numbers so replaced selection data never has the same revision.
+    private final AtomicInteger revisions = new AtomicInteger();
+    final SelectionData globalSelection = new SelectionData();
+
+    private final Plugin plugin;
+    private final File folder;
+    private final long idleTime;
+    private final int maxRadius;
+    //Selections that are being written to disk so a quick rejoin doesn't read an old file.
+    private final ConcurrentHashMap<UUID, SelectionData> saving = new ConcurrentHashMap<UUID, SelectionData>();
+    //Selections read on login that still have to be resolved on the main thread when the player joins.
+    private final ConcurrentHashMap<UUID, StoredSelection> loaded = new ConcurrentHashMap<UUID, StoredSelection>();
+    //Locks so the same file is never written by multiple threads at once.
+    private final Object[] fileLocks = new Object[16];
 
-    public SelectionManager() {
+    /**
+     * Create the selection manager.
+     *
+     * @param plugin The plugin used to schedule the idle check and async saving.
+     * @param folder The folder to save selections in. (null to not save selections)
+     * @param idleMinutes Minutes after which unused selections of offline players are removed. (0 to only remove them on quit)
+     * @param maxRadius The maximum radius of sphere, ellipsoid and cylinder regions and half the maximum size of polygons.
+     */
+    public SelectionManager(Plugin plugin, File folder, int idleMinutes, int maxRadius) {
         instance = this;
         listener = new SelectionListener();
+        this.plugin = plugin;
+        this.folder = folder;
+        this.idleTime = idleMinutes * 60000L;
+        this.maxRadius = maxRadius;
+
+        selectionWand = new SelectionWand();
+        registerWand(selectionWand);
+        registerWand(new InfoWand());
+
+        for (int i = 0; i < fileLocks.length; i++) {
+            fileLocks[i] = new Object();
+        }
+        if (folder != null) {
+            folder.mkdirs();
+            for (Player player : Bukkit.getOnlinePlayers()) {
+                load(player.getUniqueId());
+                resolve(player.getUniqueId());
+            }
+        }
+        if (idleTime > 0) {
+            new BukkitRunnable() {
+                @Override
+                public void run() {
+                    evictIdle();
+                }
+            }.runTaskTimer(plugin, 1200, 1200);
+        }
     }
 
     public static SelectionManager inst() {
@@ -64,6 +143,39 @@ public class SelectionManager {
         return listener;
     }
 
+    /**
+     * Get the selection data of a player without creating it.
+     *
+     * @return The selection data or null when the player has no selection.
+     */
+    private SelectionData get(Player player) {
+        if (player == null) {
+            return globalSelection;
+        }
+        SelectionData sd = selections.get(player.getUniqueId());
+        if (sd != null) {
+            sd.lastUsed = System.currentTimeMillis();
+        }
+        return sd;
+    }
+
+    private SelectionData getOrCreate(Player player) {
+        if (player == null) {
+            return globalSelection;
+        }
+        UUID uuid = player.getUniqueId();
+        SelectionData sd = selections.get(uuid);
+        if (sd == null) {
+            SelectionData created = new SelectionData();
+            sd = selections.putIfAbsent(uuid, created);
+            if (sd == null) {
+                sd = created;
+            }
+        }
+        sd.lastUsed = System.currentTimeMillis();
+        return sd;
+    }
+
     /**
      * Get a Cuboid from the selection.
      * If only one of the locations is set a 1*1*1 cuboid will be returned at that location.
@@ -72,25 +184,167 @@ public class SelectionManager {
      * @return Cuboid or null if both locations aren't set.
      */
     public Cuboid getSelection(Player player) {
-        SelectionData sd;
-        if (player == null) {
-            sd = globalSelection;
+        SelectionData sd = get(player);
+        if (sd == null) {
+            return null;
+        }
+        Location pos1 = sd.pos1;
+        Location pos2 = sd.pos2;
+        if (pos1 != null && pos2 != null) {
+            return new Cuboid(pos1, pos2);
+        } else if (pos1 != null) {
+            return new Cuboid(pos1, pos1);
+        } else if (pos2 != null) {
+            return new Cuboid(pos2, pos2);
         } else {
-            UUID uuid = player.getUniqueId();
-            if (!selections.containsKey(uuid)) {
-                selections.put(uuid, new SelectionData());
+            return null;
+        }
+    }
+
+    /**
+     * Get the selected region based on the selection shape.
+     * <ul>
+     * <li>{@link SelectionShape#CUBOID} the cuboid between the two positions. (See {@link #getSelection(Player)})</li>
+     * <li>{@link SelectionShape#POLYGON} the polygon through the points, from the lowest to the highest point.</li>
+     * <li>{@link SelectionShape#SPHERE} a sphere around pos1 with the distance to pos2 as radius.</li>
+     * <li>{@link SelectionShape#ELLIPSOID} an ellipsoid around pos1 with the offset to pos2 on each axis as radius.</li>
+     * <li>{@link SelectionShape#CYLINDER} a cylinder around pos1 with the horizontal distance to pos2 as radius, from the Y of pos1 to the Y of pos2.</li>
+     * </ul>
+     *
+     * Regions with a radius larger than the max radius (or polygons larger than twice the max radius) aren't created
+     * as the shape has to be calculated for every row of blocks.
+     *
+     * @param player Get the region from the specified player or get the global region if it's null.
+     * @return The region or null if the points for the shape aren't set or the region is too large.
+     */
+    public Region getRegion(Player player) {
+        SelectionData sd = get(player);
+        if (sd == null) {
+            return null;
+        }
+        SelectionShape shape = sd.shape;
+        if (shape == SelectionShape.CUBOID) {
+            return getSelection(player);
+        }
+        if (shape == SelectionShape.POLYGON) {
+            Location[] points = sd.points;
+            if (points.length == 0) {
+                return null;
             }
-            sd = selections.get(uuid);
-        }
-        if (sd.pos1 != null && sd.pos2 != null) {
-            return new Cuboid(sd.pos1, sd.pos2);
-        } else if (sd.pos1 != null) {
-            return new Cuboid(sd.pos1, sd.pos1);
-        } else if (sd.pos2 != null) {
-            return new Cuboid(sd.pos2, sd.pos2);
+            int[] pointsX = new int[points.length];
+            int[] pointsZ = new int[points.length];
+            int minY = points[0].getBlockY();
+            int maxY = minY;
+            for (int i = 0; i < points.length; i++) {
+                pointsX[i] = points[i].getBlockX();
+                pointsZ[i] = points[i].getBlockZ();
+                minY = Math.min(minY, points[i].getBlockY());
+                maxY = Math.max(maxY, points[i].getBlockY());
+            }
+            if (exceedsRadius(pointsX) || exceedsRadius(pointsZ)) {
+                return null;
+            }
+            return new PolygonRegion(points[0].getWorld().getName(), pointsX, pointsZ, minY, maxY);
+        }
+
+        Location center = sd.pos1;
+        if (center == null) {
+            return null;
+        }
+        Location edge = sd.pos2;
+        if (edge == null || edge.getWorld() != center.getWorld()) {
+            edge = center;
+        }
+        String world = center.getWorld().getName();
+        int dx = Math.abs(edge.getBlockX() - center.getBlockX());
+        int dy = Math.abs(edge.getBlockY() - center.getBlockY());
+        int dz = Math.abs(edge.getBlockZ() - center.getBlockZ());
+        double radius;
+        if (shape == SelectionShape.SPHERE) {
+            radius = Math.sqrt((double)dx * dx + (double)dy * dy + (double)dz * dz);
+        } else if (shape == SelectionShape.ELLIPSOID) {
+            radius = Math.max(dx, Math.max(dy, dz));
         } else {
+            radius = Math.sqrt((double)dx * dx + (double)dz * dz);
+        }
+        if (radius > maxRadius) {
             return null;
         }
+        if (shape == SelectionShape.SPHERE) {
+            return new SphereRegion(world, center.getBlockX(), center.getBlockY(), center.getBlockZ(), radius);
+        } else if (shape == SelectionShape.ELLIPSOID) {
+            return new EllipsoidRegion(world, center.getBlockX(), center.getBlockY(), center.getBlockZ(), dx, dy, dz);
+        } else {
+            return new CylinderRegion(world, center.getBlockX(), center.getBlockZ(), center.getBlockY(), edge.getBlockY(), radius);
+        }
+    }
+
+    /**
+     * Get the shape that is selected with the selection wand.
+     *
+     * @param player Get the shape from the specified player or get the global shape if it's null.
+     * @return The selection shape. ({@link SelectionShape#CUBOID} by default)
+     */
+    public SelectionShape getShape(Player player) {
+        SelectionData sd = get(player);
+        return sd == null ? SelectionShape.CUBOID : sd.shape;
+    }
+
+    /**
+     * Set the shape that is selected with the selection wand.
+     * The positions and points are kept so switching between shapes reuses the selected positions.
+     *
+     * @param player Set the shape from the specified player or set the global shape if it's null.
+     * @param shape The selection shape.
+     */
+    public void setShape(Player player, SelectionShape shape) {
+        SelectionData sd = getOrCreate(player);
+        synchronized (sd) {
+            sd.shape = shape;
+            sd.revision = revisions.incrementAndGet();
+        }
+    }
+
+    /**
+     * Get the points of the polygon selection.
+     *
+     * @param player Get the points from the specified player or get the global points if it's null.
+     * @return Unmodifiable list with the points. (Empty when no points are set)
+     */
+    public List<Location> getPoints(Player player) {
+        SelectionData sd = get(player);
+        return sd == null ? Collections.<Location>emptyList() : Collections.unmodifiableList(Arrays.asList(sd.points));
+    }
+
+    /**
+     * Add a point to the polygon selection.
+     *
+     * @param player Add the point for the specified player or add a global point if it's null.
+     * @param location The location of the point.
+     * @return The amount of points after adding the point.
+     */
+    public int addPoint(Player player, Location location) {
+        SelectionData sd = getOrCreate(player);
+        synchronized (sd) {
+            Location[] points = Arrays.copyOf(sd.points, sd.points.length + 1);
+            points[points.length - 1] = location.clone();
+            sd.points = points;
+            sd.revision = revisions.incrementAndGet();
+            return points.length;
+        }
+    }
+
+    /**
+     * Remove all points of the polygon selection.
+     *
+     * @param player Clear the points of the specified player or clear the global points if it's null.
+     */
+    public void clearPoints(Player player) {
+        SelectionData sd = getOrCreate(player);
+        synchronized (sd) {
+            sd.points = new Location[0];
+            sd.revision = revisions.incrementAndGet();
+        }
     }
 
     public Location getPos(Player player, SelectionType type) {
@@ -117,15 +371,8 @@ public class SelectionManager {
      * @return Location of pos1 or null
      */
     public Location getPos1(Player player) {
-        if (player == null) {
-            return globalSelection.pos1;
-        } else {
-            UUID uuid = player.getUniqueId();
-            if (!selections.containsKey(uuid)) {
-                selections.put(uuid, new SelectionData());
-            }
-            return selections.get(uuid).pos1;
-        }
+        SelectionData sd = get(player);
+        return sd == null ? null : sd.pos1;
     }
 
     /**
@@ -135,14 +382,10 @@ public class SelectionManager {
      * @param location The location used to be set as pos1.
      */
     public void setPos1(Player player, Location location) {
-        if (player == null) {
-            globalSelection.pos1 = location;
-        } else {
-            UUID uuid = player.getUniqueId();
-            if (!selections.containsKey(uuid)) {
-                selections.put(uuid, new SelectionData());
-            }
-            selections.get(uuid).pos1 = location;
+        SelectionData sd = getOrCreate(player);
+        synchronized (sd) {
+            sd.pos1 = location == null ? null : location.clone();
+            sd.revision = revisions.incrementAndGet();
         }
     }
 
@@ -155,15 +398,8 @@ public class SelectionManager {
      * @return Location of pos2 or null
      */
     public Location getPos2(Player player) {
-        if (player == null) {
-            return globalSelection.pos2;
-        } else {
-            UUID uuid = player.getUniqueId();
-            if (!selections.containsKey(uuid)) {
-                selections.put(uuid, new SelectionData());
-            }
-            return selections.get(uuid).pos2;
-        }
+        SelectionData sd = get(player);
+        return sd == null ? null : sd.pos2;
     }
 
     /**
@@ -173,14 +409,10 @@ public class SelectionManager {
      * @param location The location used to be set as pos2.
      */
     public void setPos2(Player player, Location location) {
-        if (player == null) {
-            globalSelection.pos2 = location;
-        } else {
-            UUID uuid = player.getUniqueId();
-            if (!selections.containsKey(uuid)) {
-                selections.put(uuid, new SelectionData());
-            }
-            selections.get(uuid).pos2 = location;
+        SelectionData sd = getOrCreate(player);
+        synchronized (sd) {
+            sd.pos2 = location == null ? null : location.clone();
+            sd.revision = revisions.incrementAndGet();
         }
     }
 
@@ -193,21 +425,17 @@ public class SelectionManager {
      * @return SelectionStatus enum value based on points set.
      */
     public SelectionStatus getStatus(Player player) {
-        SelectionData sd;
-        if (player == null) {
-            sd = globalSelection;
-        } else {
-            UUID uuid = player.getUniqueId();
-            if (!selections.containsKey(uuid)) {
-                selections.put(uuid, new SelectionData());
-            }
-            sd = selections.get(uuid);
+        SelectionData sd = get(player);
+        if (sd == null) {
+            return SelectionStatus.NONE;
         }
-        if (sd.pos1 != null && sd.pos2 != null) {
+        boolean pos1 = sd.pos1 != null;
+        boolean pos2 = sd.pos2 != null;
+        if (pos1 && pos2) {
             return SelectionStatus.BOTH;
-        } else if (sd.pos1 != null) {
+        } else if (pos1) {
             return SelectionStatus.POS1;
-        } else if (sd.pos2 != null) {
+        } else if (pos2) {
             return SelectionStatus.POS2;
         } else {
             return SelectionStatus.NONE;
@@ -215,12 +443,313 @@ public class SelectionManager {
     }
 
     /**
-     * Get the wand item
+     * Get the maximum radius of sphere, ellipsoid and cylinder regions.
+     *
+     * @return The max radius in blocks.
+     */
+    public int getMaxRadius() {
+        return maxRadius;
+    }
+
+    private boolean exceedsRadius(int[] coords) {
+        int min = coords[0];
+        int max = coords[0];
+        for (int coord : coords) {
+            min = Math.min(min, coord);
+            max = Math.max(max, coord);
+        }
+        return (long)max - min > maxRadius * 2L;
+    }
+
+    /**
+     * Get the revision of the selection.
+     * The revision changes every time one of the positions, points or the shape changes
+     * so it can be used to check if cached data of the selection is still valid.
+     *
+     * @param player Get the revision from the specified player or from global if it's null.
+     * @return The revision or -1 when the player has no selection.
+     */
+    public int getRevision(Player player) {
+        SelectionData sd = player == null ? globalSelection : selections.get(player.getUniqueId());
+        return sd == null ? -1 : sd.revision;
+    }
+
+    /**
+     * Get the selection wand.
+     *
+     * @return The {@link SelectionWand}
+     */
+    public Wand getSelectionWand() {
+        return selectionWand;
+    }
+
+    /**
+     * Remove the selection of a player.
+     * When persistence is enabled the selection is saved first.
+     *
+     * @param uuid The uuid of the player.
+     * @return true when the player had a selection.
+     */
+    public boolean remove(UUID uuid) {
+        SelectionData sd = selections.remove(uuid);
+        if (sd == null) {
+            return false;
+        }
+        save(uuid, sd);
+        return true;
+    }
+
+    /**
+     * Save the selections of all players synchronously.
+     * This is called when the plugin gets disabled.
+     */
+    public void saveAll() {
+        if (folder == null) {
+            return;
+        }
+        for (Map.Entry<UUID, SelectionData> entry : saving.entrySet()) {
+            write(entry.getKey(), entry.getValue());
+        }
+        for (Map.Entry<UUID, SelectionData> entry : selections.entrySet()) {
+            write(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Get the selection wand item
      *
      * @return EItem
      */
     public EItem getWand() {
-        return basicWand;
+        return selectionWand.getItem();
+    }
+
+    /**
+     * Register a wand so it can be used.
+     *
+     * @param wand The wand to register.
+     * @throws IllegalArgumentException when a wand with the same id is already registered.
+     */
+    public void registerWand(Wand wand) {
+        if (wands.containsKey(wand.getId())) {
+            throw new IllegalArgumentException("There is already a wand registered with the id '" + wand.getId() + "'.");
+        }
+        wands.put(wand.getId(), wand);
+        wandMaterials.add(wand.getItem().getType());
+    }
+
+    /**
+     * Unregister a wand.
+     *
+     * @param id The id of the wand.
+     * @return true if the wand was unregistered and false if there was no wand with the id.
+     */
+    public boolean unregisterWand(String id) {
+        if (wands.remove(id) == null) {
+            return false;
+        }
+        wandMaterials.clear();
+        for (Wand wand : wands.values()) {
+            wandMaterials.add(wand.getItem().getType());
+        }
+        return true;
+    }
+
+    /**
+     * Get a registered wand by id.
+     *
+     * @param id The id of the wand.
+     * @return The wand or null when there is no wand with the id.
+     */
+    public Wand getWand(String id) {
+        return wands.get(id);
+    }
+
+    /**
+     * Get the wand for the item.
+     * Items with a material that isn't used by any wand are skipped without reading the item tag.
+     *
+     * @param item The item to check.
+     * @return The wand or null when the item isn't a registered wand.
+     */
+    public Wand getWand(ItemStack item) {
+        if (item == null || !wandMaterials.contains(item.getType())) {
+            return null;
+        }
+        String id = NMS.get().getItemUtils().getTag(item, Wand.TAG);
+        return id == null ? null : wands.get(id);
+    }
+
+    /**
+     * Get all registered wands.
+     *
+     * @return Collection with wands.
+     */
+    public Collection<Wand> getWands() {
+        return Collections.unmodifiableCollection(wands.values());
+    }
+
+
+    private void evictIdle() {
+        long idleSince = System.currentTimeMillis() - idleTime;
+        Iterator<Map.Entry<UUID, SelectionData>> iterator = selections.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<UUID, SelectionData> entry = iterator.next();
+            //Online players keep their selection, it's only loaded again on login.
+            if (entry.getValue().lastUsed < idleSince && Bukkit.getPlayer(entry.getKey()) == null) {
+                iterator.remove();
+                save(entry.getKey(), entry.getValue());
+            }
+        }
+        //Selections loaded for a login that never resulted in a join.
+        Iterator<StoredSelection> loadedIterator = loaded.values().iterator();
+        while (loadedIterator.hasNext()) {
+            if (loadedIterator.next().loadTime < idleSince) {
+                loadedIterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Save the selection data asynchronously when persistence is enabled.
+     */
+    private void save(final UUID uuid, final SelectionData sd) {
+        if (folder == null) {
+            return;
+        }
+        saving.put(uuid, sd);
+        new BukkitRunnable() {
+            @Override
+            public void run() {
+                write(uuid, sd);
+                saving.remove(uuid, sd);
+            }
+        }.runTaskAsynchronously(plugin);
+    }
+
+    /**
+     * Load the selection of a player from disk when persistence is enabled.
+     * Can be called from any thread.
+     * A selection that was still being saved is used directly,
+     * otherwise the file is read and stored till {@link #resolve(UUID)} is called on the main thread.
+     */
+    private void load(UUID uuid) {
+        if (folder == null || selections.containsKey(uuid)) {
+            return;
+        }
+        SelectionData sd = saving.get(uuid);
+        if (sd != null) {
+            sd.lastUsed = System.currentTimeMillis();
+            selections.putIfAbsent(uuid, sd);
+            return;
+        }
+        StoredSelection stored = read(uuid);
+        if (stored != null) {
+            loaded.put(uuid, stored);
+        }
+    }
+
+    /**
+     * Create the selection data from the selection loaded on login.
+     * This must be called from the main thread as it looks up the worlds.
+     */
+    private void resolve(UUID uuid) {
+        StoredSelection stored = loaded.remove(uuid);
+        if (stored == null || selections.containsKey(uuid)) {
+            return;
+        }
+        SelectionData sd = new SelectionData();
+        sd.pos1 = stored.pos1 == null ? null : stored.pos1.resolve();
+        sd.pos2 = stored.pos2 == null ? null : stored.pos2.resolve();
+        sd.shape = stored.shape;
+        List<Location> points = new ArrayList<Location>(stored.points.length);
+        for (StoredLocation point : stored.points) {
+            Location location = point.resolve();
+            if (location != null) {
+                points.add(location);
+            }
+        }
+        sd.points = points.toArray(new Location[points.size()]);
+        selections.putIfAbsent(uuid, sd);
+    }
+
+    private void write(UUID uuid, SelectionData sd) {
+        synchronized (fileLocks[uuid.hashCode() & (fileLocks.length - 1)]) {
+            File file = new File(folder, uuid.toString() + ".dat");
+            Location pos1 = sd.pos1;
+            Location pos2 = sd.pos2;
+            Location[] points = sd.points;
+            if (pos1 == null && pos2 == null && points.length == 0) {
+                file.delete();
+                return;
+            }
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+                out.writeByte(FILE_VERSION);
+                writeLocation(out, pos1);
+                writeLocation(out, pos2);
+                out.writeByte(sd.shape.ordinal());
+                out.writeInt(points.length);
+                for (Location point : points) {
+                    writeLocation(out, point);
+                }
+            } catch (IOException e) {
+                plugin.getLogger().warning("Failed to save the selection of " + uuid + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private StoredSelection read(UUID uuid) {
+        synchronized (fileLocks[uuid.hashCode() & (fileLocks.length - 1)]) {
+            File file = new File(folder, uuid.toString() + ".dat");
+            if (!file.exists()) {
+                return null;
+            }
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                int version = in.readByte();
+                if (version < 1 || version > FILE_VERSION) {
+                    return null;
+                }
+                StoredSelection stored = new StoredSelection();
+                stored.pos1 = readLocation(in);
+                stored.pos2 = readLocation(in);
+                if (version >= 2) {
+                    SelectionShape[] shapes = SelectionShape.values();
+                    int shape = in.readByte();
+                    stored.shape = shape >= 0 && shape < shapes.length ? shapes[shape] : SelectionShape.CUBOID;
+                    List<StoredLocation> points = new ArrayList<StoredLocation>();
+                    for (int i = in.readInt(); i > 0; i--) {
+                        StoredLocation point = readLocation(in);
+                        if (point != null) {
+                            points.add(point);
+                        }
+                    }
+                    stored.points = points.toArray(new StoredLocation[points.size()]);
+                }
+                return stored;
+            } catch (IOException e) {
+                plugin.getLogger().warning("Failed to load the selection of " + uuid + ": " + e.getMessage());
+                return null;
+            }
+        }
+    }
+
+    private static void writeLocation(DataOutputStream out, Location location) throws IOException {
+        if (location == null || location.getWorld() == null) {
+            out.writeBoolean(false);
+            return;
+        }
+        out.writeBoolean(true);
+        out.writeUTF(location.getWorld().getName());
+        out.writeInt(location.getBlockX());
+        out.writeInt(location.getBlockY());
+        out.writeInt(location.getBlockZ());
+    }
+
+    private static StoredLocation readLocation(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        return new StoredLocation(in.readUTF(), in.readInt(), in.readInt(), in.readInt());
     }
 
 
@@ -233,55 +762,166 @@ public class SelectionManager {
         PRIMARY, SECONDARY;
     }
 
+    public enum SelectionShape {
+        CUBOID, POLYGON, SPHERE, ELLIPSOID, CYLINDER;
+    }
+
 
 
     public class SelectionData {
-        public Location pos1;
-        public Location pos2;
+        public volatile Location pos1;
+        public volatile Location pos2;
+        public volatile SelectionShape shape = SelectionShape.CUBOID;
+        public volatile Location[] points = new Location[0];
+        volatile int revision = revisions.incrementAndGet();
+        volatile long lastUsed = System.currentTimeMillis();
     }
 
+    /**
+     * Selection read from disk with world names instead of worlds.
+     */
+    private static class StoredSelection {
+        private StoredLocation pos1;
+        private StoredLocation pos2;
+        private SelectionShape shape = SelectionShape.CUBOID;
+        private StoredLocation[] points = new StoredLocation[0];
+        private final long loadTime = System.currentTimeMillis();
+    }
 
-    public class SelectionListener implements Listener {
+    private static class StoredLocation {
+        private final String worldName;
+        private final int x, y, z;
 
-        @EventHandler
-        private void onInteract(PlayerInteractEvent event) {
-            Player player = event.getPlayer();
-            if (!player.hasPermission("selection.select")) {
-                return;
+        private StoredLocation(String worldName, int x, int y, int z) {
+            this.worldName = worldName;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+        }
+
+        /** Get the location or null when the world isn't loaded. (Main thread only) */
+        private Location resolve() {
+            World world = Bukkit.getWorld(worldName);
+            return world == null ? null : new Location(world, x, y, z);
+        }
+    }
+
+
+    /**
+     * Wand to set the selection positions.
+     * Left click a block to set position one and right click to set position two.
+     * For spheres, ellipsoids and cylinders position one is the center and position two the radius.
+     * For polygons left click sets the first point and right click adds a point.
+     * Sneak and right click air to switch to the next {@link SelectionShape}.
+     */
+    public class SelectionWand extends Wand {
+        private SelectionWand() {
+            super("selection", new EItem(Material.STONE_AXE).setGlowing(true).addItemFlags().setName("&6&lSelection Wand"), "selection.select");
+        }
+
+        @Override
+        public boolean onUse(Player player, PlayerInteractEvent event) {
+            if (event.getAction() == Action.RIGHT_CLICK_AIR && player.isSneaking()) {
+                SelectionShape[] shapes = SelectionShape.values();
+                SelectionShape shape = shapes[(getShape(player).ordinal() + 1) % shapes.length];
+                setShape(player, shape);
+                Msg.get("wand.shape", Param.P("shape", shape.toString().toLowerCase())).send(player);
+                return true;
             }
             if (event.getAction() != Action.RIGHT_CLICK_BLOCK && event.getAction() != Action.LEFT_CLICK_BLOCK) {
-                return;
+                return false;
             }
-
-            //Compare item with wands.
-            EItem item = new EItem(event.getItem());
-            if (!ItemUtil.compare(item, getWand(), true)) {
-                return;
-            }
-
-            event.setCancelled(true);
             Location loc = event.getClickedBlock().getLocation();
+            SelectionShape shape = getShape(player);
 
-            SelectionType type = SelectionType.PRIMARY;
-            if (event.getAction() == Action.RIGHT_CLICK_BLOCK) {
-                type = SelectionType.SECONDARY;
+            String name;
+            if (shape == SelectionShape.POLYGON) {
+                if (event.getAction() == Action.LEFT_CLICK_BLOCK) {
+                    clearPoints(player);
+                }
+                name = Msg.getString("wand.point", Param.P("index", addPoint(player, loc)));
+            } else {
+                SelectionType type = SelectionType.PRIMARY;
+                if (event.getAction() == Action.RIGHT_CLICK_BLOCK) {
+                    type = SelectionType.SECONDARY;
+                }
+                setPos(player, type, loc);
+                if (shape == SelectionShape.CUBOID) {
+                    name = Msg.getString(type == SelectionType.PRIMARY ? "wand.pos-1" : "wand.pos-2");
+                } else {
+                    name = Msg.getString(type == SelectionType.PRIMARY ? "wand.center" : "wand.radius");
+                }
             }
 
             //Select!
-
-            Msg.get("wand.selected", Param.P("type", type == SelectionType.PRIMARY ? Msg.getString("wand.pos-1") : Msg.getString("wand.pos-2")),
+            Msg.get("wand.selected", Param.P("type", name),
                     Param.P("x", loc.getBlockX()), Param.P("y", loc.getBlockY()), Param.P("z", loc.getBlockZ()),
                     Param.P("material", event.getClickedBlock().getType().toString()), Param.P("data", event.getClickedBlock().getData())).send(player);
-            setPos(player, type, loc);
+            return true;
+        }
+    }
 
-            //Display particles for selection.
-            if (getStatus(player) == SelectionStatus.BOTH) {
-                Cuboid cuboid = getSelection(player);
-                for (org.bukkit.util.Vector vector : cuboid.getEdgeVectors()) {
-                    cuboid.getWorld().spawnParticle(Particle.VILLAGER_HAPPY, vector.toLocation(cuboid.getWorld()).add(0.5f, 0.5f, 0.5f), 2, 0.1f, 0.1f, 0.1f, 0);
-                }
+    /**
+     * Wand that shows the type and location of clicked blocks.
+     */
+    public class InfoWand extends Wand {
+        private InfoWand() {
+            super("info", new EItem(Material.STICK).setGlowing(true).addItemFlags().setName("&6&lInfo Wand"), "selection.info");
+        }
+
+        @Override
+        public boolean onUse(Player player, PlayerInteractEvent event) {
+            if (event.getAction() != Action.RIGHT_CLICK_BLOCK && event.getAction() != Action.LEFT_CLICK_BLOCK) {
+                return false;
+            }
+            Block block = event.getClickedBlock();
+            Msg.get("wand.info", Param.P("x", block.getX()), Param.P("y", block.getY()), Param.P("z", block.getZ()),
+                    Param.P("material", block.getType().toString()), Param.P("data", block.getData())).send(player);
+            return true;
+        }
+    }
+
+
+    public class SelectionListener implements Listener {
+
+        @EventHandler(priority = EventPriority.MONITOR)
+        private void onPreLogin(AsyncPlayerPreLoginEvent event) {
+            if (event.getLoginResult() == AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+                load(event.getUniqueId());
+            }
+        }
+
+        @EventHandler(priority = EventPriority.MONITOR)
+        private void onLogin(PlayerLoginEvent event) {
+            if (event.getResult() != PlayerLoginEvent.Result.ALLOWED) {
+                loaded.remove(event.getPlayer().getUniqueId());
+            }
+        }
+
+        @EventHandler(priority = EventPriority.LOWEST)
+        private void onJoin(PlayerJoinEvent event) {
+            resolve(event.getPlayer().getUniqueId());
+        }
+
+        @EventHandler
+        private void onQuit(PlayerQuitEvent event) {
+            remove(event.getPlayer().getUniqueId());
+        }
+
+        @EventHandler
+        private void onInteract(PlayerInteractEvent event) {
+            Wand wand = getWand(event.getItem());
+            if (wand == null || event.getAction() == Action.PHYSICAL) {
+                return;
+            }
+            Player player = event.getPlayer();
+            if (wand.getPermission() != null && !player.hasPermission(wand.getPermission())) {
+                return;
+            }
+            if (wand.onUse(player, event)) {
+                event.setCancelled(true);
             }
         }
     }
 
-}
\ No newline at end of file
+}
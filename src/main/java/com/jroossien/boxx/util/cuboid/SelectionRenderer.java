@@ -0,0 +1,400 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Rojoss <http://jroossien.com>
+ * Copyright (c) 2016 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jroossien.boxx.util.cuboid;
+
+import com.jroossien.boxx.util.ParticleEffect;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.Particle;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.util.Vector;
+
+import java.util.*;
+
+/**
+ * Draws the selections of players with particles.
+ * <p>
+ * The outline of a selection is cached as a list of line segments (12 edges for cuboids, polylines for round shapes)
+ * and only rebuilt when the selection changes. The segments are calculated from the selected positions and shape
+ * so the (possibly large) region never has to be created for drawing it. Every tick the segments are sampled from where the previous tick stopped
+ * so large outlines are spread over multiple ticks and each player gets at most the configured amount of particles per tick.
+ * <p>
+ * Only the part of a segment within the render distance is sampled, points outside the view of the player are skipped
+ * and the spacing between particles grows with the distance. (level of detail)
+ * <p>
+ * The selection is shown while a player holds the selection wand or when it's enabled with {@link #setVisible(Player, boolean)}.
+ */
+public class SelectionRenderer implements Listener {
+
+    //Particles closer than this are always drawn even if they're not in front of the player.
+    private static final double NEAR_DISTANCE = 2;
+    //Cosine of the half angle of the view cone. (~70 degrees covers the corners of the default FOV)
+    private static final double VIEW_COS = 0.34;
+    private static final double MIN_SPACING = 0.5;
+    private static final double LOD_FACTOR = 0.08;
+    private static final int ELLIPSE_SEGMENTS = 48;
+
+    private final SelectionManager sm;
+    private final ParticleEffect effect = new ParticleEffect(Particle.VILLAGER_HAPPY, 1, 0, 0, 0, 0);
+    private final Map<UUID, Viewer> viewers = new HashMap<UUID, Viewer>();
+    private final Set<UUID> visible = new HashSet<UUID>();
+    private final int particlesPerTick;
+    private final double renderDistance;
+    private final int interval;
+    private long tick;
+
+    /**
+     * Create the renderer and start drawing selections.
+     *
+     * @param plugin The plugin used to schedule the render task.
+     * @param sm The selection manager to draw selections from.
+     * @param particlesPerTick The maximum amount of particles per player per tick.
+     * @param renderDistance The maximum distance in blocks to draw particles. (Also limited by the server view distance)
+     * @param interval The minimum amount of ticks between drawing the full outline again.
+     */
+    public SelectionRenderer(Plugin plugin, SelectionManager sm, int particlesPerTick, double renderDistance, int interval) {
+        this.sm = sm;
+        this.particlesPerTick = Math.max(1, particlesPerTick);
+        this.renderDistance = Math.min(renderDistance, Bukkit.getViewDistance() * 16);
+        this.interval = Math.max(1, interval);
+
+        new BukkitRunnable() {
+            @Override
+            public void run() {
+                render();
+            }
+        }.runTaskTimer(plugin, 1, 1);
+    }
+
+    /**
+     * Always show the selection to the player, even when not holding the wand.
+     *
+     * @param player The player to show or hide the selection for.
+     * @param visible When true the selection is always shown.
+     */
+    public void setVisible(Player player, boolean visible) {
+        if (visible) {
+            this.visible.add(player.getUniqueId());
+        } else {
+            this.visible.remove(player.getUniqueId());
+        }
+    }
+
+    /**
+     * Check if the selection is always shown to the player.
+     *
+     * @param player The player to check.
+     * @return true when the selection is shown even when not holding the wand.
+     */
+    public boolean isVisible(Player player) {
+        return visible.contains(player.getUniqueId());
+    }
+
+    /**
+     * Get the cached outline segments of the selection of the player.
+     *
+     * @param player The player to get the outline from.
+     * @return Array with 6 values (x1, y1, z1, x2, y2, z2) per segment or null when the player has no selection.
+     */
+    public double[] getSegments(Player player) {
+        Viewer viewer = getViewer(player);
+        return viewer.update(player) ? viewer.segments.clone() : null;
+    }
+
+
+    private void render() {
+        tick++;
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            UUID uuid = player.getUniqueId();
+            if (!visible.contains(uuid) && sm.getWand(player.getInventory().getItemInMainHand()) != sm.getSelectionWand()) {
+                continue;
+            }
+            Viewer viewer = getViewer(player);
+            if (viewer.update(player) && player.getWorld().getName().equals(viewer.world)) {
+                viewer.draw(player);
+            }
+        }
+    }
+
+    private Viewer getViewer(Player player) {
+        Viewer viewer = viewers.get(player.getUniqueId());
+        if (viewer == null) {
+            viewer = new Viewer();
+            viewers.put(player.getUniqueId(), viewer);
+        }
+        return viewer;
+    }
+
+    /**
+     * Get the outline segments of a selection with the same shape as {@link SelectionManager#getRegion(Player)}.
+     * Cuboids use the edges of the box, polygons the edges of the prism and round shapes an ellipse for each axis.
+     *
+     * @return The segments or null when the points for the shape aren't set.
+     */
+    static double[] buildSegments(SelectionManager.SelectionShape shape, Location pos1, Location pos2, List<Location> points) {
+        Segments segments = new Segments();
+        if (shape == SelectionManager.SelectionShape.POLYGON) {
+            if (points.isEmpty()) {
+                return null;
+            }
+            double bottom = points.get(0).getBlockY();
+            double top = bottom;
+            for (Location point : points) {
+                bottom = Math.min(bottom, point.getBlockY());
+                top = Math.max(top, point.getBlockY());
+            }
+            top++;
+            for (int i = 0, j = points.size() - 1; i < points.size(); j = i++) {
+                double x1 = points.get(j).getBlockX() + 0.5, z1 = points.get(j).getBlockZ() + 0.5;
+                double x2 = points.get(i).getBlockX() + 0.5, z2 = points.get(i).getBlockZ() + 0.5;
+                segments.add(x1, bottom, z1, x2, bottom, z2);
+                segments.add(x1, top, z1, x2, top, z2);
+                segments.add(x2, bottom, z2, x2, top, z2);
+            }
+            return segments.toArray();
+        }
+
+        if (shape == SelectionManager.SelectionShape.CUBOID) {
+            if (pos1 == null || pos2 == null || pos1.getWorld() != pos2.getWorld()) {
+                pos1 = pos1 == null ? pos2 : pos1;
+                pos2 = pos1;
+            }
+            if (pos1 == null) {
+                return null;
+            }
+            double x1 = Math.min(pos1.getBlockX(), pos2.getBlockX()), y1 = Math.min(pos1.getBlockY(), pos2.getBlockY()), z1 = Math.min(pos1.getBlockZ(), pos2.getBlockZ());
+            double x2 = Math.max(pos1.getBlockX(), pos2.getBlockX()) + 1, y2 = Math.max(pos1.getBlockY(), pos2.getBlockY()) + 1, z2 = Math.max(pos1.getBlockZ(), pos2.getBlockZ()) + 1;
+            for (double y : new double[] {y1, y2}) {
+                segments.add(x1, y, z1, x2, y, z1);
+                segments.add(x1, y, z2, x2, y, z2);
+                segments.add(x1, y, z1, x1, y, z2);
+                segments.add(x2, y, z1, x2, y, z2);
+            }
+            segments.add(x1, y1, z1, x1, y2, z1);
+            segments.add(x2, y1, z1, x2, y2, z1);
+            segments.add(x1, y1, z2, x1, y2, z2);
+            segments.add(x2, y1, z2, x2, y2, z2);
+            return segments.toArray();
+        }
+
+        //Round shapes around pos1 with the offset to pos2 as radius.
+        if (pos1 == null) {
+            return null;
+        }
+        if (pos2 == null || pos2.getWorld() != pos1.getWorld()) {
+            pos2 = pos1;
+        }
+        double dx = Math.abs(pos2.getBlockX() - pos1.getBlockX());
+        double dy = Math.abs(pos2.getBlockY() - pos1.getBlockY());
+        double dz = Math.abs(pos2.getBlockZ() - pos1.getBlockZ());
+        double cx = pos1.getBlockX() + 0.5, cy = pos1.getBlockY() + 0.5, cz = pos1.getBlockZ() + 0.5;
+        if (shape == SelectionManager.SelectionShape.CYLINDER) {
+            double r = Math.sqrt(dx * dx + dz * dz) + 0.5;
+            double bottom = Math.min(pos1.getBlockY(), pos2.getBlockY());
+            double top = Math.max(pos1.getBlockY(), pos2.getBlockY()) + 1;
+            segments.ellipse(cx, bottom, cz, r, 0, 0, 0, 0, r);
+            segments.ellipse(cx, top, cz, r, 0, 0, 0, 0, r);
+            segments.add(cx - r, bottom, cz, cx - r, top, cz);
+            segments.add(cx + r, bottom, cz, cx + r, top, cz);
+            segments.add(cx, bottom, cz - r, cx, top, cz - r);
+            segments.add(cx, bottom, cz + r, cx, top, cz + r);
+            return segments.toArray();
+        }
+        double rx = dx + 0.5, ry = dy + 0.5, rz = dz + 0.5;
+        if (shape == SelectionManager.SelectionShape.SPHERE) {
+            rx = ry = rz = Math.sqrt(dx * dx + dy * dy + dz * dz) + 0.5;
+        }
+        segments.ellipse(cx, cy, cz, rx, 0, 0, 0, 0, rz);
+        segments.ellipse(cx, cy, cz, rx, 0, 0, 0, ry, 0);
+        segments.ellipse(cx, cy, cz, 0, 0, rz, 0, ry, 0);
+        return segments.toArray();
+    }
+
+
+    /**
+     * Growable list of segments.
+     */
+    private static class Segments {
+        private double[] values = new double[72];
+        private int size;
+
+        private void add(double x1, double y1, double z1, double x2, double y2, double z2) {
+            if (size + 6 > values.length) {
+                values = Arrays.copyOf(values, values.length * 2);
+            }
+            values[size++] = x1;
+            values[size++] = y1;
+            values[size++] = z1;
+            values[size++] = x2;
+            values[size++] = y2;
+            values[size++] = z2;
+        }
+
+        /**
+         * Add an ellipse as polyline with the two axes as vectors from the center.
+         */
+        private void ellipse(double cx, double cy, double cz, double ax, double ay, double az, double bx, double by, double bz) {
+            double prevX = cx + ax, prevY = cy + ay, prevZ = cz + az;
+            for (int i = 1; i <= ELLIPSE_SEGMENTS; i++) {
+                double angle = Math.PI * 2 * i / ELLIPSE_SEGMENTS;
+                double cos = Math.cos(angle), sin = Math.sin(angle);
+                double x = cx + ax * cos + bx * sin, y = cy + ay * cos + by * sin, z = cz + az * cos + bz * sin;
+                add(prevX, prevY, prevZ, x, y, z);
+                prevX = x;
+                prevY = y;
+                prevZ = z;
+            }
+        }
+
+        private double[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+
+    /**
+     * The cached outline of a player and how far it has been drawn.
+     */
+    private class Viewer {
+        private int revision = -1;
+        private String world;
+        private double[] segments;
+        private final Location location = new Location(null, 0, 0, 0);
+
+        private int segment;
+        private double offset;
+        private long passStart;
+
+        /**
+         * Rebuild the segments when the selection changed.
+         *
+         * @return false when the player has no selection.
+         */
+        private boolean update(Player player) {
+            int current = sm.getRevision(player);
+            if (current != revision) {
+                revision = current;
+                Location pos1 = sm.getPos1(player);
+                Location pos2 = sm.getPos2(player);
+                List<Location> points = sm.getPoints(player);
+                SelectionManager.SelectionShape shape = sm.getShape(player);
+                segments = current < 0 ? null : buildSegments(shape, pos1, pos2, points);
+                if (segments == null) {
+                    world = null;
+                } else if (shape == SelectionManager.SelectionShape.POLYGON) {
+                    world = points.get(0).getWorld().getName();
+                } else {
+                    world = (pos1 == null ? pos2 : pos1).getWorld().getName();
+                }
+                segment = segments == null ? 0 : segments.length;
+                offset = 0;
+                passStart = tick - interval;
+            }
+            return segments != null;
+        }
+
+        private void draw(Player player) {
+            if (segment >= segments.length) {
+                if (tick - passStart < interval) {
+                    return;
+                }
+                segment = 0;
+                offset = 0;
+                passStart = tick;
+            }
+
+            Location eye = player.getEyeLocation();
+            double ex = eye.getX(), ey = eye.getY(), ez = eye.getZ();
+            Vector dir = eye.getDirection();
+            double dx = dir.getX(), dy = dir.getY(), dz = dir.getZ();
+            location.setWorld(player.getWorld());
+
+            int drawn = 0;
+            //Limit the samples per tick as well so culled points don't keep the loop busy.
+            int samples = particlesPerTick * 4;
+            while (segment < segments.length && drawn < particlesPerTick && samples > 0) {
+                double x1 = segments[segment], y1 = segments[segment + 1], z1 = segments[segment + 2];
+                double sx = segments[segment + 3] - x1, sy = segments[segment + 4] - y1, sz = segments[segment + 5] - z1;
+                double length = Math.sqrt(sx * sx + sy * sy + sz * sz);
+                if (length > 0) {
+                    sx /= length;
+                    sy /= length;
+                    sz /= length;
+                }
+
+                //Clip the segment to the render distance sphere around the eye.
+                double fx = x1 - ex, fy = y1 - ey, fz = z1 - ez;
+                double b = fx * sx + fy * sy + fz * sz;
+                double c = fx * fx + fy * fy + fz * fz - renderDistance * renderDistance;
+                double d = b * b - c;
+                if (d < 0) {
+                    nextSegment();
+                    continue;
+                }
+                double root = Math.sqrt(d);
+                double end = Math.min(length, -b + root);
+                if (offset < -b - root) {
+                    offset = -b - root;
+                }
+
+                while (offset <= end && drawn < particlesPerTick && samples > 0) {
+                    samples--;
+                    double px = x1 + sx * offset, py = y1 + sy * offset, pz = z1 + sz * offset;
+                    double vx = px - ex, vy = py - ey, vz = pz - ez;
+                    double distance = Math.sqrt(vx * vx + vy * vy + vz * vz);
+                    if (distance <= NEAR_DISTANCE || vx * dx + vy * dy + vz * dz >= distance * VIEW_COS) {
+                        location.setX(px);
+                        location.setY(py);
+                        location.setZ(pz);
+                        effect.displayPlayer(player, location);
+                        drawn++;
+                    }
+                    offset += Math.max(MIN_SPACING, distance * LOD_FACTOR);
+                }
+                if (offset > end) {
+                    nextSegment();
+                }
+            }
+        }
+
+        private void nextSegment() {
+            segment += 6;
+            offset = 0;
+        }
+    }
+
+
+    @EventHandler
+    private void onQuit(PlayerQuitEvent event) {
+        viewers.remove(event.getPlayer().getUniqueId());
+        visible.remove(event.getPlayer().getUniqueId());
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Rojoss <http://jroossien.com>
+ * Copyright (c) 2016 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jroossien.boxx.util.cuboid;
+
+import com.jroossien.boxx.util.Random;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Picks evenly spread safe spawn locations within a cuboid using poisson disk sampling on the X/Z plane.
+ * <p>
+ * A location is safe when it has a solid floor with two air blocks above it.
+ * For each column the highest safe spot within the cuboid is used.
+ * Every location is at least the minimum distance (horizontally) away from all other locations.
+ * <p>
+ * The amount of block lookups is limited so sampling never checks every block of a large cuboid.
+ * When the limit is reached the locations found so far are returned.
+ * This has to be called on the main thread as it reads blocks from the world.
+ */
+public class SpawnSampler {
+
+    /** Default maximum amount of block lookups per sample. */
+    public static final int DEFAULT_MAX_LOOKUPS = 65536;
+    /** Amount of candidates that are tried around each location before it's no longer used to find new locations. */
+    private static final int CANDIDATES = 30;
+
+    private final Cuboid cuboid;
+    private final World world;
+    private final double minDistance;
+    private final int maxLookups;
+    private int lookups;
+
+    private final double cellSize;
+    private final int gridWidth;
+    private final int gridLength;
+    private final int[] grid;
+    private final List<Location> locations = new ArrayList<Location>();
+
+    private SpawnSampler(Cuboid cuboid, double minDistance, int maxLookups) {
+        this.cuboid = cuboid;
+        this.world = cuboid.getWorld();
+        this.minDistance = minDistance;
+        this.maxLookups = maxLookups;
+
+        //With this cell size each cell can contain at most one location.
+        cellSize = minDistance / Math.sqrt(2);
+        gridWidth = (int)Math.ceil(cuboid.getWidth() / cellSize);
+        gridLength = (int)Math.ceil(cuboid.getLength() / cellSize);
+        grid = new int[gridWidth * gridLength];
+    }
+
+
+    /**
+     * Get safe spawn locations within the cuboid using {@link #DEFAULT_MAX_LOOKUPS}.
+     *
+     * @param cuboid The cuboid to find spawn locations in.
+     * @param amount The amount of locations to get.
+     * @param minDistance The minimum horizontal distance between locations.
+     * @return List with spawn locations. (May contain less locations than the amount when there is not enough space)
+     */
+    public static List<Location> sample(Cuboid cuboid, int amount, double minDistance) {
+        return sample(cuboid, amount, minDistance, DEFAULT_MAX_LOOKUPS);
+    }
+
+    /**
+     * Get safe spawn locations within the cuboid.
+     * The locations are centered on the block with the Y coordinate of the block above the floor.
+     *
+     * @param cuboid The cuboid to find spawn locations in.
+     * @param amount The amount of locations to get.
+     * @param minDistance The minimum horizontal distance between locations. (Must be at least 1)
+     * @param maxLookups The maximum amount of blocks that may be checked.
+     * @return List with spawn locations. (May contain less locations than the amount when there is not enough space)
+     */
+    public static List<Location> sample(Cuboid cuboid, int amount, double minDistance, int maxLookups) {
+        if (minDistance < 1) {
+            throw new IllegalArgumentException("The minimum distance must be at least 1.");
+        }
+        SpawnSampler sampler = new SpawnSampler(cuboid, minDistance, maxLookups);
+        sampler.run(amount);
+        return sampler.locations;
+    }
+
+
+    private void run(int amount) {
+        if (amount <= 0 || cuboid.getHeight() < 3) {
+            return;
+        }
+        List<Location> active = new ArrayList<Location>();
+        while (locations.size() < amount && lookups < maxLookups) {
+            if (active.isEmpty()) {
+                //Start a new area at a random column.
+                Location start = null;
+                for (int i = 0; i < CANDIDATES && start == null && lookups < maxLookups; i++) {
+                    start = tryColumn(Random.Double(cuboid.getMinX(), cuboid.getMaxX() + 1), Random.Double(cuboid.getMinZ(), cuboid.getMaxZ() + 1));
+                }
+                if (start == null && !locations.isEmpty()) {
+                    //The areas around all locations are full and random columns didn't find a spot either.
+                    break;
+                }
+                if (start != null) {
+                    active.add(start);
+                }
+                continue;
+            }
+
+            int index = Random.Int(active.size());
+            Location origin = active.get(index);
+            Location found = null;
+            for (int i = 0; i < CANDIDATES && found == null && lookups < maxLookups; i++) {
+                double angle = Random.Double() * Math.PI * 2;
+                double distance = Random.Double(minDistance, minDistance * 2);
+                found = tryColumn(origin.getX() + Math.cos(angle) * distance, origin.getZ() + Math.sin(angle) * distance);
+            }
+            if (found != null) {
+                active.add(found);
+            } else {
+                active.set(index, active.get(active.size() - 1));
+                active.remove(active.size() - 1);
+            }
+        }
+    }
+
+    /**
+     * Try to add a location at the given X/Z position.
+     * Returns the added location or null when the position is outside the cuboid, too close to another location or not safe.
+     */
+    private Location tryColumn(double x, double z) {
+        int blockX = (int)Math.floor(x);
+        int blockZ = (int)Math.floor(z);
+        if (blockX < cuboid.getMinX() || blockX > cuboid.getMaxX() || blockZ < cuboid.getMinZ() || blockZ > cuboid.getMaxZ()) {
+            return null;
+        }
+        double centerX = blockX + 0.5;
+        double centerZ = blockZ + 0.5;
+        int cellX = (int)((centerX - cuboid.getMinX()) / cellSize);
+        int cellZ = (int)((centerZ - cuboid.getMinZ()) / cellSize);
+        if (isTooClose(centerX, centerZ, cellX, cellZ)) {
+            return null;
+        }
+
+        int y = findFloor(blockX, blockZ);
+        if (y == Integer.MIN_VALUE) {
+            return null;
+        }
+        Location location = new Location(world, centerX, y + 1, centerZ);
+        locations.add(location);
+        grid[cellX + cellZ * gridWidth] = locations.size();
+        return location;
+    }
+
+    private boolean isTooClose(double x, double z, int cellX, int cellZ) {
+        double minDistanceSq = minDistance * minDistance;
+        for (int cz = Math.max(0, cellZ - 2); cz <= Math.min(gridLength - 1, cellZ + 2); cz++) {
+            for (int cx = Math.max(0, cellX - 2); cx <= Math.min(gridWidth - 1, cellX + 2); cx++) {
+                int value = grid[cx + cz * gridWidth];
+                if (value == 0) {
+                    continue;
+                }
+                Location other = locations.get(value - 1);
+                double dx = other.getX() - x;
+                double dz = other.getZ() - z;
+                if (dx * dx + dz * dz < minDistanceSq) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Find the highest solid block in the column with two air blocks above it that are still inside the cuboid.
+     * Returns Integer.MIN_VALUE when there is no safe spot or the lookup limit is reached.
+     */
+    @SuppressWarnings("deprecation")
+    private int findFloor(int x, int z) {
+        int air = 0;
+        for (int y = cuboid.getMaxY(); y >= cuboid.getMinY() && lookups < maxLookups; y--) {
+            lookups++;
+            Material type = Material.getMaterial(world.getBlockTypeIdAt(x, y, z));
+            if (type == Material.AIR) {
+                air++;
+            } else if (air >= 2 && type != null && type.isSolid()) {
+                return y;
+            } else {
+                air = 0;
+            }
+        }
+        return Integer.MIN_VALUE;
+    }
+}
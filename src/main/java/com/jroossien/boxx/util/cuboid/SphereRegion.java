@@ -0,0 +1,55 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Rojoss <http://jroossien.com>
+ * Copyright (c) 2016 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jroossien.boxx.util.cuboid;
+
+/**
+ * Sphere shaped region. (An {@link EllipsoidRegion} with the same radius on all axes)
+ */
+public class SphereRegion extends EllipsoidRegion {
+
+    /**
+     * Create a sphere region.
+     *
+     * @param worldName The name of the world.
+     * @param centerX The X coordinate of the center block.
+     * @param centerY The Y coordinate of the center block.
+     * @param centerZ The Z coordinate of the center block.
+     * @param radius The radius of the sphere.
+     * @throws IllegalArgumentException when the radius is negative or the region is too large.
+     */
+    public SphereRegion(String worldName, int centerX, int centerY, int centerZ, double radius) {
+        super(worldName, centerX, centerY, centerZ, radius, radius, radius);
+    }
+
+    public double getRadius() {
+        return getRadiusX();
+    }
+
+    @Override
+    public String toString() {
+        return "sphere:" + getCenterX() + "," + getCenterY() + "," + getCenterZ() + ":" + getRadius() + ":" + worldName;
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Rojoss <http://jroossien.com>
+ * Copyright (c) 2016 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jroossien.boxx.util.cuboid;
+
+import com.jroossien.boxx.nms.NMS;
+import com.jroossien.boxx.util.item.EItem;
+import org.bukkit.entity.Player;
+import org.bukkit.event.player.PlayerInteractEvent;
+
+/**
+ * A wand item that does something when a player interacts with it.
+ * <p>
+ * The wand item gets a hidden NBT tag ({@link #TAG}) with the id of the wand.
+ * Wands are registered with {@link SelectionManager#registerWand(Wand)} and identified by reading that tag
+ * so renaming the item or changing the lore doesn't break the wand.
+ */
+public abstract class Wand {
+
+    /** The NBT key that contains the wand id. */
+    public static final String TAG = "BoxxWand";
+
+    private final String id;
+    private final EItem item;
+    private final String permission;
+
+    /**
+     * Create a new wand.
+     *
+     * @param id The unique id of the wand.
+     * @param item The item for the wand. (A copy with the wand tag will be used)
+     * @param permission The permission needed to use the wand. (null when no permission is needed)
+     */
+    public Wand(String id, EItem item, String permission) {
+        this.id = id;
+        this.item = new EItem(NMS.get().getItemUtils().setTag(item, TAG, id));
+        this.permission = permission;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Get the item of this wand with the wand tag.
+     *
+     * @return The wand item.
+     */
+    public EItem getItem() {
+        return item;
+    }
+
+    public String getPermission() {
+        return permission;
+    }
+
+    /**
+     * Called when a player with permission interacts while holding the wand.
+     *
+     * @param player The player using the wand.
+     * @param event The interact event.
+     * @return true to cancel the event.
+     */
+    public abstract boolean onUse(Player player, PlayerInteractEvent event);
+}
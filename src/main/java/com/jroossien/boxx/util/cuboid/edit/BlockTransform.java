@@ -0,0 +1,274 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Rojoss <http://jroossien.com>
+ * Copyright (c) 2016 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jroossien.boxx.util.cuboid.edit;
+
+import com.jroossien.boxx.aliases.Rotations;
+import org.bukkit.Rotation;
+
+/**
+ * Rotation (in steps of 90 degrees clockwise) and mirroring of block positions and block data.
+ * <p>
+ * The data values of directional blocks (stairs, logs, signs, doors, torches, rails etc) are remapped
+ * with lookup tables that are built once for all block ids.
+ * A transform then only has to look up the new data for each block state.
+ * Mirroring is applied before rotating.
+ * <p>
+ * Rotations can be parsed with {@link Rotations}. Only multiples of 90 degrees are supported.
+ */
+public class BlockTransform {
+
+    public static final BlockTransform NONE = new BlockTransform(0, false, false);
+
+    private static final int STATES = 4096 * 16;
+    private static final byte[] ROTATE = identity();
+    private static final byte[] FLIP_X = identity();
+    private static final byte[] FLIP_Z = identity();
+
+    static {
+        //Directions: north = -Z, east = +X, south = +Z, west = -X. Clockwise rotation turns north in to east.
+        int[] stairs = {53, 67, 108, 109, 114, 128, 134, 135, 136, 156, 163, 164, 180, 203};
+        //0 east, 1 west, 2 south, 3 north
+        map(ROTATE, stairs, 3, 2, 3, 1, 0);
+        map(FLIP_X, stairs, 3, 1, 0, 2, 3);
+        map(FLIP_Z, stairs, 3, 0, 1, 3, 2);
+
+        //Log axis: 0 up, 4 east/west, 8 north/south, 12 all bark.
+        int[] logs = {17, 162, 170, 202, 216};
+        map(ROTATE, logs, 12, 0, -1, -1, -1, 8, -1, -1, -1, 4, -1, -1, -1, 12);
+        //Quartz: 2 pillar up, 3 pillar east/west, 4 pillar north/south.
+        map(ROTATE, new int[] {155}, 7, 0, 1, 2, 4, 3);
+
+        //Standing signs and banners: 16 directions with 0 south and 4 west.
+        int[] standing = {63, 176};
+        int[] rotate16 = new int[16], flipX16 = new int[16], flipZ16 = new int[16];
+        for (int i = 0; i < 16; i++) {
+            rotate16[i] = (i + 4) & 15;
+            flipX16[i] = (16 - i) & 15;
+            flipZ16[i] = (24 - i) & 15;
+        }
+        map(ROTATE, standing, 15, rotate16);
+        map(FLIP_X, standing, 15, flipX16);
+        map(FLIP_Z, standing, 15, flipZ16);
+
+        //Facing: 0 down, 1 up, 2 north, 3 south, 4 west, 5 east.
+        int[] facing = {23, 29, 33, 34, 54, 61, 62, 65, 68, 130, 144, 146, 154, 158, 177, 198};
+        map(ROTATE, facing, 7, 0, 1, 5, 4, 2, 3);
+        map(FLIP_X, facing, 7, 0, 1, 2, 3, 5, 4);
+        map(FLIP_Z, facing, 7, 0, 1, 3, 2, 4, 5);
+
+        //Attached: 1 east, 2 west, 3 south, 4 north. (Lever also has 5/6 on the ground and 0/7 on the ceiling for both axes)
+        int[] attached = {50, 75, 76, 77, 143};
+        map(ROTATE, attached, 7, 0, 3, 4, 2, 1);
+        map(FLIP_X, attached, 7, 0, 2, 1, 3, 4);
+        map(FLIP_Z, attached, 7, 0, 1, 2, 4, 3);
+        int[] lever = {69};
+        map(ROTATE, lever, 7, 7, 3, 4, 2, 1, 6, 5, 0);
+        map(FLIP_X, lever, 7, 0, 2, 1, 3, 4, 5, 6, 7);
+        map(FLIP_Z, lever, 7, 0, 1, 2, 4, 3, 5, 6, 7);
+
+        //Horizontal in clockwise order. (0 south, 1 west, 2 north, 3 east or for diodes starting at north)
+        int[] horizontal = {26, 86, 91, 93, 94, 107, 120, 127, 131, 145, 149, 150, 183, 184, 185, 186, 187};
+        map(ROTATE, horizontal, 3, 1, 2, 3, 0);
+        map(FLIP_X, horizontal, 3, 0, 3, 2, 1);
+        map(FLIP_Z, horizontal, 3, 2, 1, 0, 3);
+
+        //Trapdoors: 0 south, 1 north, 2 east, 3 west.
+        int[] trapdoors = {96, 167};
+        map(ROTATE, trapdoors, 3, 3, 2, 0, 1);
+        map(FLIP_X, trapdoors, 3, 0, 1, 3, 2);
+        map(FLIP_Z, trapdoors, 3, 1, 0, 2, 3);
+
+        //Doors: the bottom half has the facing (0 east, 1 south, 2 west, 3 north) and the top half (bit 8) the hinge side in bit 1.
+        int[] doors = {64, 71, 193, 194, 195, 196, 197};
+        int[] flipXDoor = {2, 1, 0, 3};
+        int[] flipZDoor = {0, 3, 2, 1};
+        for (int id : doors) {
+            for (int data = 0; data < 16; data++) {
+                int index = id << 4 | data;
+                if ((data & 8) == 0) {
+                    ROTATE[index] = (byte)((data & ~3) | ((data + 1) & 3));
+                    FLIP_X[index] = (byte)((data & ~3) | flipXDoor[data & 3]);
+                    FLIP_Z[index] = (byte)((data & ~3) | flipZDoor[data & 3]);
+                } else {
+                    //Mirroring changes the side of the hinge.
+                    FLIP_X[index] = (byte)(data ^ 1);
+                    FLIP_Z[index] = (byte)(data ^ 1);
+                }
+            }
+        }
+
+        //Vines: bit mask with 1 south, 2 west, 4 north, 8 east.
+        int[] rotateVine = new int[16], flipXVine = new int[16], flipZVine = new int[16];
+        for (int i = 0; i < 16; i++) {
+            rotateVine[i] = ((i << 1) | (i >> 3)) & 15;
+            flipXVine[i] = (i & 5) | ((i & 2) << 2) | ((i & 8) >> 2);
+            flipZVine[i] = (i & 10) | ((i & 1) << 2) | ((i & 4) >> 2);
+        }
+        map(ROTATE, new int[] {106}, 15, rotateVine);
+        map(FLIP_X, new int[] {106}, 15, flipXVine);
+        map(FLIP_Z, new int[] {106}, 15, flipZVine);
+
+        //Rails: 0 north/south, 1 east/west, 2-5 ascending east/west/north/south, 6-9 curves south-east/south-west/north-west/north-east.
+        map(ROTATE, new int[] {66}, 15, 1, 0, 5, 4, 2, 3, 7, 8, 9, 6);
+        map(FLIP_X, new int[] {66}, 15, 0, 1, 3, 2, 4, 5, 7, 6, 9, 8);
+        map(FLIP_Z, new int[] {66}, 15, 0, 1, 2, 3, 5, 4, 9, 8, 7, 6);
+        int[] poweredRails = {27, 28, 157};
+        map(ROTATE, poweredRails, 7, 1, 0, 5, 4, 2, 3);
+        map(FLIP_X, poweredRails, 7, 0, 1, 3, 2, 4, 5);
+        map(FLIP_Z, poweredRails, 7, 0, 1, 2, 3, 5, 4);
+    }
+
+    private final int turns;
+    private final boolean flipX;
+    private final boolean flipZ;
+
+    /**
+     * Create a transform.
+     *
+     * @param turns The amount of clockwise 90 degree turns.
+     * @param flipX Mirror the X axis (east and west) before rotating.
+     * @param flipZ Mirror the Z axis (north and south) before rotating.
+     */
+    public BlockTransform(int turns, boolean flipX, boolean flipZ) {
+        this.turns = ((turns % 4) + 4) % 4;
+        this.flipX = flipX;
+        this.flipZ = flipZ;
+    }
+
+    /**
+     * Create a transform from a Bukkit {@link Rotation}.
+     *
+     * @param rotation The rotation. (Must be a multiple of 90 degrees)
+     * @param flipX Mirror the X axis (east and west) before rotating.
+     * @param flipZ Mirror the Z axis (north and south) before rotating.
+     * @return The transform.
+     * @throws IllegalArgumentException when the rotation is not a multiple of 90 degrees.
+     */
+    public static BlockTransform of(Rotation rotation, boolean flipX, boolean flipZ) {
+        switch (rotation) {
+            case NONE:
+                return new BlockTransform(0, flipX, flipZ);
+            case CLOCKWISE:
+                return new BlockTransform(1, flipX, flipZ);
+            case FLIPPED:
+                return new BlockTransform(2, flipX, flipZ);
+            case COUNTER_CLOCKWISE:
+                return new BlockTransform(3, flipX, flipZ);
+            default:
+                throw new IllegalArgumentException("Blocks can only be rotated in steps of 90 degrees.");
+        }
+    }
+
+    public int getTurns() {
+        return turns;
+    }
+
+    public boolean isFlipX() {
+        return flipX;
+    }
+
+    public boolean isFlipZ() {
+        return flipZ;
+    }
+
+    /**
+     * Transform a relative X/Z position.
+     *
+     * @param x The relative X position.
+     * @param z The relative Z position.
+     * @return Array with the transformed X and Z position.
+     */
+    public int[] transform(int x, int z) {
+        int[] pos = new int[2];
+        transform(x, z, pos);
+        return pos;
+    }
+
+    /**
+     * Transform a relative X/Z position and store the result in the array.
+     */
+    void transform(int x, int z, int[] out) {
+        if (flipX) {
+            x = -x;
+        }
+        if (flipZ) {
+            z = -z;
+        }
+        for (int i = 0; i < turns; i++) {
+            int prevX = x;
+            x = -z;
+            z = prevX;
+        }
+        out[0] = x;
+        out[1] = z;
+    }
+
+    /**
+     * Transform a block state. (id | data &lt;&lt; 12)
+     * Only the data value changes.
+     *
+     * @param state The block state.
+     * @return The transformed block state.
+     */
+    public int transformState(int state) {
+        int id = state & 0xFFF;
+        int index = id << 4 | (state >>> 12) & 15;
+        if (flipX) {
+            index = (index & ~15) | FLIP_X[index];
+        }
+        if (flipZ) {
+            index = (index & ~15) | FLIP_Z[index];
+        }
+        for (int i = 0; i < turns; i++) {
+            index = (index & ~15) | ROTATE[index];
+        }
+        return id | (index & 15) << 12;
+    }
+
+
+    private static byte[] identity() {
+        byte[] table = new byte[STATES];
+        for (int i = 0; i < STATES; i++) {
+            table[i] = (byte)(i & 15);
+        }
+        return table;
+    }
+
+    /**
+     * Remap the data bits in the mask for the ids.
+     * Each data value (data &amp; mask) is replaced with mapping[value] and values without mapping (or -1) stay the same.
+     */
+    private static void map(byte[] table, int[] ids, int mask, int... mapping) {
+        for (int id : ids) {
+            for (int data = 0; data < 16; data++) {
+                int value = data & mask;
+                if (value < mapping.length && mapping[value] >= 0) {
+                    table[id << 4 | data] = (byte)((data & ~mask) | mapping[value]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Rojoss <http://jroossien.com>
+ * Copyright (c) 2016 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jroossien.boxx.util.cuboid.edit;
+
+import org.bukkit.World;
+import org.bukkit.block.Block;
+
+/**
+ * Default {@link BlockWriter} that uses the Bukkit API.
+ * Physics are not applied for the changed blocks.
+ */
+public class BukkitBlockWriter implements BlockWriter {
+
+    //The block from getState is reused when the same block is set right after.
+    private Block lastBlock;
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public void setBlock(World world, int x, int y, int z, int typeId, byte data) {
+        getBlock(world, x, y, z).setTypeIdAndData(typeId, data, false);
+        lastBlock = null;
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public int getState(World world, int x, int y, int z) {
+        lastBlock = getBlock(world, x, y, z);
+        return lastBlock.getTypeId() | (lastBlock.getData() << 12);
+    }
+
+    private Block getBlock(World world, int x, int y, int z) {
+        Block block = lastBlock;
+        if (block != null && block.getX() == x && block.getY() == y && block.getZ() == z && block.getWorld() == world) {
+            return block;
+        }
+        return world.getBlockAt(x, y, z);
+    }
+
+    @Override
+    public void flush() {}
+}
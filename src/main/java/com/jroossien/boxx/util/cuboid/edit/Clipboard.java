@@ -0,0 +1,246 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Rojoss <http://jroossien.com>
+ * Copyright (c) 2016 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jroossien.boxx.util.cuboid.edit;
+
+import com.jroossien.boxx.util.cuboid.Cuboid;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import java.util.Arrays;
+
+/**
+ * Copy of the blocks in a cuboid that can be pasted somewhere else with rotation and mirroring.
+ * <p>
+ * The blocks are stored as a palette of block states (id | data &lt;&lt; 12) with a 16 bit palette index per block.
+ * Pasting transforms the palette once with a {@link BlockTransform} and streams the blocks through an {@link EditJob}
+ * so it can be spread over multiple ticks with the {@link EditScheduler}.
+ * <p>
+ * Only block types and data are copied. (No tile entity data like sign text or chest contents)
+ */
+public class Clipboard {
+
+    private final int width;
+    private final int height;
+    private final int length;
+    private final int offsetX;
+    private final int offsetY;
+    private final int offsetZ;
+    private final int[] palette;
+    private final char[] blocks;
+
+    private Clipboard(int width, int height, int length, int offsetX, int offsetY, int offsetZ, int[] palette, char[] blocks) {
+        this.width = width;
+        this.height = height;
+        this.length = length;
+        this.offsetX = offsetX;
+        this.offsetY = offsetY;
+        this.offsetZ = offsetZ;
+        this.palette = palette;
+        this.blocks = blocks;
+    }
+
+
+    /**
+     * Copy all blocks in the cuboid with the minimum corner as origin.
+     *
+     * @param cuboid The cuboid to copy.
+     * @return The {@link Clipboard} with the blocks.
+     * @see #copy(Cuboid, Location)
+     */
+    public static Clipboard copy(Cuboid cuboid) {
+        return copy(cuboid, cuboid.getMinLoc());
+    }
+
+    /**
+     * Copy all blocks in the cuboid.
+     * The origin is the point that will be placed at the paste location and the point that is rotated around.
+     * For example the location of the player that copied the blocks.
+     * This must be called from the main thread. Each chunk is read once through a {@link ChunkSnapshot}.
+     *
+     * @param cuboid The cuboid to copy.
+     * @param origin The origin for pasting.
+     * @return The {@link Clipboard} with the blocks.
+     */
+    @SuppressWarnings("deprecation")
+    public static Clipboard copy(Cuboid cuboid, Location origin) {
+        World world = cuboid.getWorld();
+        int width = cuboid.getWidth();
+        int height = cuboid.getHeight();
+        int length = cuboid.getLength();
+
+        int[] paletteIndex = new int[1 << 16];
+        Arrays.fill(paletteIndex, -1);
+        int[] palette = new int[16];
+        int paletteSize = 0;
+        char[] blocks = new char[width * height * length];
+
+        for (int chunkX = cuboid.getMinX() >> 4; chunkX <= cuboid.getMaxX() >> 4; chunkX++) {
+            for (int chunkZ = cuboid.getMinZ() >> 4; chunkZ <= cuboid.getMaxZ() >> 4; chunkZ++) {
+                ChunkSnapshot snapshot = world.getChunkAt(chunkX, chunkZ).getChunkSnapshot(false, false, false);
+                int minX = Math.max(cuboid.getMinX(), chunkX << 4);
+                int maxX = Math.min(cuboid.getMaxX(), (chunkX << 4) + 15);
+                int minZ = Math.max(cuboid.getMinZ(), chunkZ << 4);
+                int maxZ = Math.min(cuboid.getMaxZ(), (chunkZ << 4) + 15);
+                for (int y = cuboid.getMinY(); y <= cuboid.getMaxY(); y++) {
+                    for (int z = minZ; z <= maxZ; z++) {
+                        for (int x = minX; x <= maxX; x++) {
+                            int state = 0;
+                            if (y >= 0 && y < 256) {
+                                state = (snapshot.getBlockTypeId(x & 15, y, z & 15) & 0xFFF) | (snapshot.getBlockData(x & 15, y, z & 15) << 12);
+                            }
+                            int index = paletteIndex[state];
+                            if (index < 0) {
+                                if (paletteSize == palette.length) {
+                                    palette = Arrays.copyOf(palette, paletteSize * 2);
+                                }
+                                index = paletteSize;
+                                palette[paletteSize++] = state;
+                                paletteIndex[state] = index;
+                            }
+                            blocks[((y - cuboid.getMinY()) * length + (z - cuboid.getMinZ())) * width + (x - cuboid.getMinX())] = (char)index;
+                        }
+                    }
+                }
+            }
+        }
+
+        return new Clipboard(width, height, length, cuboid.getMinX() - origin.getBlockX(), cuboid.getMinY() - origin.getBlockY(),
+                cuboid.getMinZ() - origin.getBlockZ(), Arrays.copyOf(palette, paletteSize), blocks);
+    }
+
+
+    /**
+     * Create a job that pastes the blocks with the origin at the target location.
+     * Submit the job to the {@link EditScheduler} to paste it over multiple ticks.
+     *
+     * @param target The location where the origin will be pasted.
+     * @return The paste {@link EditJob}
+     */
+    public EditJob paste(Location target) {
+        return paste(target, BlockTransform.NONE, true);
+    }
+
+    /**
+     * Create a job that pastes the transformed blocks with the origin at the target location.
+     * Submit the job to the {@link EditScheduler} to paste it over multiple ticks.
+     *
+     * @param target The location where the origin will be pasted.
+     * @param transform The rotation and mirroring to apply. {@link BlockTransform}
+     * @param pasteAir When false air blocks in the clipboard won't replace existing blocks.
+     * @return The paste {@link EditJob}
+     */
+    public EditJob paste(Location target, BlockTransform transform, boolean pasteAir) {
+        int[] states = new int[palette.length];
+        for (int i = 0; i < palette.length; i++) {
+            states[i] = transform.transformState(palette[i]);
+        }
+        return new PasteJob(target.getWorld(), target.getBlockX(), target.getBlockY(), target.getBlockZ(), transform, states, pasteAir);
+    }
+
+    /**
+     * Get the area the blocks will be pasted in.
+     *
+     * @param target The location where the origin will be pasted.
+     * @param transform The rotation and mirroring to apply.
+     * @return Cuboid with the area.
+     */
+    public Cuboid getPasteArea(Location target, BlockTransform transform) {
+        int[] min = transform.transform(offsetX, offsetZ);
+        int[] max = transform.transform(offsetX + width - 1, offsetZ + length - 1);
+        return new Cuboid(target.getWorld(), target.getBlockX() + min[0], target.getBlockY() + offsetY, target.getBlockZ() + min[1],
+                target.getBlockX() + max[0], target.getBlockY() + offsetY + height - 1, target.getBlockZ() + max[1]);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Get the amount of blocks in the clipboard.
+     *
+     * @return Amount of blocks.
+     */
+    public int getVolume() {
+        return blocks.length;
+    }
+
+    /**
+     * Get the amount of unique block states in the clipboard.
+     *
+     * @return Size of the palette.
+     */
+    public int getPaletteSize() {
+        return palette.length;
+    }
+
+
+    private class PasteJob extends EditJob {
+        private final int targetX;
+        private final int targetY;
+        private final int targetZ;
+        private final BlockTransform transform;
+        private final int[] states;
+        private final boolean pasteAir;
+        private final int[] pos = new int[2];
+        private int index;
+
+        private PasteJob(World world, int targetX, int targetY, int targetZ, BlockTransform transform, int[] states, boolean pasteAir) {
+            super(world, blocks.length);
+            this.targetX = targetX;
+            this.targetY = targetY;
+            this.targetZ = targetZ;
+            this.transform = transform;
+            this.states = states;
+            this.pasteAir = pasteAir;
+        }
+
+        @Override
+        protected boolean step(BlockWriter writer) {
+            if (index >= blocks.length) {
+                return false;
+            }
+            int state = states[blocks[index]];
+            if (pasteAir || (state & 0xFFF) != 0) {
+                int x = index % width;
+                int z = (index / width) % length;
+                int y = index / (width * length);
+                transform.transform(offsetX + x, offsetZ + z, pos);
+                writer.setBlock(getWorld(), targetX + pos[0], targetY + offsetY + y, targetZ + pos[1], state & 0xFFF, (byte)(state >>> 12));
+            }
+            index++;
+            return true;
+        }
+    }
+}
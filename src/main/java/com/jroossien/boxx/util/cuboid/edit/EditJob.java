@@ -0,0 +1,247 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Rojoss <http://jroossien.com>
+ * Copyright (c) 2016 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jroossien.boxx.util.cuboid.edit;
+
+import org.bukkit.World;
+
+/**
+ * A block edit that is executed over multiple ticks by the {@link EditScheduler}.
+ * Jobs process one block per {@link #step(BlockWriter)} and the scheduler decides how many steps fit in a tick.
+ */
+public abstract class EditJob {
+
+    private final World world;
+    private final long total;
+    private long processed;
+
+    private Priority priority = Priority.NORMAL;
+    private EditCallback callback;
+    private Status status = Status.PENDING;
+    private Throwable error;
+    private EditJournal.JournalWriter journalWriter;
+
+    EditScheduler scheduler;
+    long order;
+
+    /**
+     * Create a new job.
+     *
+     * @param world The world the job is editing.
+     * @param total The amount of steps the job needs. (Used for progress)
+     */
+    protected EditJob(World world, long total) {
+        this.world = world;
+        this.total = total;
+    }
+
+    /**
+     * Process the next block.
+     *
+     * @param writer The writer to write the block changes with.
+     * @return true if a block was processed and false when the job has no blocks left.
+     */
+    protected abstract boolean step(BlockWriter writer);
+
+    boolean process(BlockWriter writer) {
+        if (journalWriter != null) {
+            journalWriter.writer = writer;
+            writer = journalWriter;
+        }
+        if (!step(writer)) {
+            return false;
+        }
+        processed++;
+        return true;
+    }
+
+
+    /**
+     * Get the world this job is editing.
+     *
+     * @return The World
+     */
+    public World getWorld() {
+        return world;
+    }
+
+    /**
+     * Get the amount of steps that have been processed.
+     *
+     * @return Amount of processed steps.
+     */
+    public long getProcessed() {
+        return processed;
+    }
+
+    /**
+     * Get the total amount of steps for this job.
+     *
+     * @return Total amount of steps.
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * Get the progress of this job.
+     *
+     * @return Progress between 0 and 1.
+     */
+    public double getProgress() {
+        if (status == Status.DONE || total <= 0) {
+            return status == Status.DONE ? 1 : 0;
+        }
+        return Math.min(1, (double)processed / total);
+    }
+
+    /**
+     * Get the current status of this job.
+     *
+     * @return {@link Status}
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    void setStatus(Status status) {
+        this.status = status;
+    }
+
+    /**
+     * Check whether the job has completed or has been cancelled.
+     *
+     * @return true when the job won't process any more blocks.
+     */
+    public boolean isFinished() {
+        return status == Status.DONE || status == Status.CANCELLED || status == Status.FAILED;
+    }
+
+    /**
+     * Get the exception that made this job fail.
+     *
+     * @return The exception or null when the job didn't fail.
+     */
+    public Throwable getError() {
+        return error;
+    }
+
+    void fail(Throwable error) {
+        this.error = error;
+        this.status = Status.FAILED;
+    }
+
+
+    public Priority getPriority() {
+        return priority;
+    }
+
+    /**
+     * Set the priority of this job.
+     * Jobs with a higher priority will be processed first.
+     * Jobs with the same priority will be processed in the order they were submitted.
+     *
+     * @param priority The {@link Priority}
+     * @return this instance
+     */
+    public EditJob setPriority(Priority priority) {
+        if (scheduler != null && !isFinished()) {
+            scheduler.reprioritize(this, priority);
+        } else {
+            this.priority = priority;
+        }
+        return this;
+    }
+
+    void updatePriority(Priority priority) {
+        this.priority = priority;
+    }
+
+    public EditCallback getCallback() {
+        return callback;
+    }
+
+    /**
+     * Set the callback that will be called when the job completes or gets cancelled.
+     *
+     * @param callback The {@link EditCallback}
+     * @return this instance
+     */
+    public EditJob setCallback(EditCallback callback) {
+        this.callback = callback;
+        return this;
+    }
+
+    public EditJournal getJournal() {
+        return journalWriter == null ? null : journalWriter.getJournal();
+    }
+
+    /**
+     * Set the journal to record all block changes of this job in.
+     * This way the changes can be reverted with {@link EditJournal#undo()}.
+     * Multiple jobs can share the same journal as long as they edit the same world.
+     *
+     * @param journal The {@link EditJournal} (null to not record changes)
+     * @return this instance
+     * @throws IllegalArgumentException when the journal is for a different world than this job.
+     */
+    public EditJob setJournal(EditJournal journal) {
+        if (journal != null && journal.getWorld() != getWorld()) {
+            throw new IllegalArgumentException("The journal is for a different world than the job!");
+        }
+        this.journalWriter = journal == null ? null : new EditJournal.JournalWriter(journal);
+        return this;
+    }
+
+
+    /**
+     * Cancel this job.
+     * Blocks that have already been changed won't be reverted.
+     *
+     * @return true if the job got cancelled and false if it was already finished.
+     */
+    public boolean cancel() {
+        if (isFinished()) {
+            return false;
+        }
+        if (scheduler != null) {
+            return scheduler.cancel(this);
+        }
+        status = Status.CANCELLED;
+        if (callback != null) {
+            callback.onCancel(this);
+        }
+        return true;
+    }
+
+
+    public enum Priority {
+        LOW, NORMAL, HIGH;
+    }
+
+    public enum Status {
+        PENDING, RUNNING, DONE, CANCELLED, FAILED;
+    }
+}
@@ -0,0 +1,312 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Rojoss <http://jroossien.com>
+ * Copyright (c) 2016 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jroossien.boxx.util.cuboid.edit;
+
+import com.jroossien.boxx.util.cuboid.LongCoordSet;
+import org.bukkit.World;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Journal with the previous and new state of every block changed by {@link EditJob}s.
+ * <p>
+ * Set the journal on a job with {@link EditJob#setJournal(EditJournal)} before submitting it.
+ * After that {@link #undo()} and {@link #redo()} create jobs that replay the changes under the tick budget of the {@link EditScheduler}.
+ * <p>
+ * Entries are stored in fixed size segments of primitive buffers. (Packed coordinates, previous state and new state)
+ * The buffers can be allocated off-heap and when the memory cap is reached the oldest segments are spilled to a temporary file.
+ * Call {@link #close()} when the journal is no longer needed to delete the file.
+ */
+public class EditJournal {
+
+    private static final int ENTRY_BYTES = 16;
+    private static final int SEGMENT_ENTRIES = 4096;
+    private static final int SEGMENT_BYTES = ENTRY_BYTES * SEGMENT_ENTRIES;
+
+    private final World world;
+    private final boolean offHeap;
+    private final int maxSegments;
+
+    private final List<Segment> segments = new ArrayList<Segment>();
+    private int memorySegments;
+    private long size;
+
+    private File spillFile;
+    private FileChannel spillChannel;
+    private long spillOffset;
+
+    /**
+     * Create a journal that keeps up to 16MB in memory on the heap.
+     *
+     * @param world The world that will be edited.
+     */
+    public EditJournal(World world) {
+        this(world, 16 * 1024 * 1024, false);
+    }
+
+    /**
+     * Create a new journal.
+     *
+     * @param world The world that will be edited.
+     * @param maxMemory The maximum amount of bytes to keep in memory before spilling to disk. (At least one segment of 64KB is kept)
+     * @param offHeap Whether the buffers should be allocated off-heap.
+     */
+    public EditJournal(World world, long maxMemory, boolean offHeap) {
+        this.world = world;
+        this.offHeap = offHeap;
+        this.maxSegments = (int)Math.max(1, Math.min(Integer.MAX_VALUE, maxMemory / SEGMENT_BYTES));
+    }
+
+
+    /**
+     * Record a block change.
+     *
+     * @param x The X coordinate.
+     * @param y The Y coordinate.
+     * @param z The Z coordinate.
+     * @param prevState The previous state. (id | data &lt;&lt; 12)
+     * @param newState The new state. (id | data &lt;&lt; 12)
+     */
+    public void record(int x, int y, int z, int prevState, int newState) {
+        Segment segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        if (segment == null || segment.count == SEGMENT_ENTRIES) {
+            segment = newSegment();
+        }
+        segment.buffer.putLong(segment.count * ENTRY_BYTES, LongCoordSet.pack(x, y, z));
+        segment.buffer.putInt(segment.count * ENTRY_BYTES + 8, prevState);
+        segment.buffer.putInt(segment.count * ENTRY_BYTES + 12, newState);
+        segment.count++;
+        size++;
+    }
+
+    /**
+     * Get the amount of recorded changes.
+     *
+     * @return Amount of changes.
+     */
+    public long size() {
+        return size;
+    }
+
+    public World getWorld() {
+        return world;
+    }
+
+    /**
+     * Create a job that reverts all recorded changes in reverse order.
+     *
+     * @return The undo {@link EditJob}
+     */
+    public EditJob undo() {
+        return new ReplayJob(true);
+    }
+
+    /**
+     * Create a job that applies all recorded changes again in the original order.
+     *
+     * @return The redo {@link EditJob}
+     */
+    public EditJob redo() {
+        return new ReplayJob(false);
+    }
+
+    /**
+     * Remove all recorded changes and delete the spill file.
+     */
+    public void close() {
+        segments.clear();
+        memorySegments = 0;
+        size = 0;
+        if (spillChannel != null) {
+            try {
+                spillChannel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            spillChannel = null;
+            spillFile.delete();
+            spillFile = null;
+            spillOffset = 0;
+        }
+    }
+
+
+    private Segment newSegment() {
+        if (memorySegments >= maxSegments) {
+            spillOldest();
+        }
+        Segment segment = new Segment();
+        segment.buffer = allocate();
+        segments.add(segment);
+        memorySegments++;
+        return segment;
+    }
+
+    private ByteBuffer allocate() {
+        return offHeap ? ByteBuffer.allocateDirect(SEGMENT_BYTES) : ByteBuffer.allocate(SEGMENT_BYTES);
+    }
+
+    private void spillOldest() {
+        for (Segment segment : segments) {
+            if (segment.buffer != null) {
+                try {
+                    if (spillChannel == null) {
+                        spillFile = File.createTempFile("boxx-journal", ".bin");
+                        spillFile.deleteOnExit();
+                        spillChannel = FileChannel.open(spillFile.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+                    }
+                    ByteBuffer buffer = segment.buffer.duplicate();
+                    buffer.clear();
+                    buffer.limit(segment.count * ENTRY_BYTES);
+                    segment.fileOffset = spillOffset;
+                    while (buffer.hasRemaining()) {
+                        spillOffset += spillChannel.write(buffer, spillOffset);
+                    }
+                    segment.buffer = null;
+                    memorySegments--;
+                } catch (IOException e) {
+                    //Keep the segment in memory when it can't be written to disk.
+                    e.printStackTrace();
+                }
+                return;
+            }
+        }
+    }
+
+    private ByteBuffer read(Segment segment, ByteBuffer scratch) {
+        if (segment.buffer != null) {
+            return segment.buffer;
+        }
+        try {
+            scratch.clear();
+            scratch.limit(segment.count * ENTRY_BYTES);
+            long offset = segment.fileOffset;
+            while (scratch.hasRemaining()) {
+                int read = spillChannel.read(scratch, offset);
+                if (read < 0) {
+                    throw new IOException("Unexpected end of the journal file.");
+                }
+                offset += read;
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read the edit journal from disk.", e);
+        }
+        return scratch;
+    }
+
+
+
+    private static class Segment {
+        private ByteBuffer buffer;
+        private long fileOffset;
+        private int count;
+    }
+
+
+    /**
+     * Replays the journal entries forwards (redo) or backwards (undo).
+     */
+    private class ReplayJob extends EditJob {
+        private final boolean reverse;
+        private final ByteBuffer scratch;
+        private int segmentIndex;
+        private int entryIndex;
+        private ByteBuffer buffer;
+
+        private ReplayJob(boolean reverse) {
+            super(world, size);
+            this.reverse = reverse;
+            this.scratch = ByteBuffer.allocate(SEGMENT_BYTES);
+            this.segmentIndex = reverse ? segments.size() : -1;
+        }
+
+        @Override
+        protected boolean step(BlockWriter writer) {
+            if (buffer == null || (reverse ? entryIndex < 0 : entryIndex >= segments.get(segmentIndex).count)) {
+                segmentIndex += reverse ? -1 : 1;
+                if (segmentIndex < 0 || segmentIndex >= segments.size()) {
+                    return false;
+                }
+                Segment segment = segments.get(segmentIndex);
+                buffer = read(segment, scratch);
+                entryIndex = reverse ? segment.count - 1 : 0;
+            }
+            int offset = entryIndex * ENTRY_BYTES;
+            long key = buffer.getLong(offset);
+            int state = buffer.getInt(offset + (reverse ? 8 : 12));
+            writer.setBlock(getWorld(), LongCoordSet.unpackX(key), LongCoordSet.unpackY(key), LongCoordSet.unpackZ(key), state & 0xFFF, (byte)(state >>> 12));
+            entryIndex += reverse ? -1 : 1;
+            return true;
+        }
+    }
+
+
+    /**
+     * Writer that records the previous state of each block before passing the change on.
+     */
+    static class JournalWriter implements BlockWriter {
+        private final EditJournal journal;
+        BlockWriter writer;
+
+        JournalWriter(EditJournal journal) {
+            this.journal = journal;
+        }
+
+        EditJournal getJournal() {
+            return journal;
+        }
+
+        @Override
+        public void setBlock(World world, int x, int y, int z, int typeId, byte data) {
+            if (world != journal.getWorld()) {
+                throw new IllegalArgumentException("The journal can only record blocks in the world " + journal.getWorld().getName() + "!");
+            }
+            int prevState = writer.getState(world, x, y, z);
+            int newState = typeId | ((data & 15) << 12);
+            if (prevState == newState) {
+                return;
+            }
+            journal.record(x, y, z, prevState, newState);
+            writer.setBlock(world, x, y, z, typeId, data);
+        }
+
+        @Override
+        public int getState(World world, int x, int y, int z) {
+            return writer.getState(world, x, y, z);
+        }
+
+        @Override
+        public void flush() {
+            writer.flush();
+        }
+    }
+}
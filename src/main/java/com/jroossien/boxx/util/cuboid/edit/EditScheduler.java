@@ -0,0 +1,295 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Rojoss <http://jroossien.com>
+ * Copyright (c) 2016 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jroossien.boxx.util.cuboid.edit;
+
+import com.jroossien.boxx.util.cuboid.Region;
+import org.bukkit.Material;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.*;
+import java.util.logging.Level;
+
+/**
+ * Runs {@link EditJob}s spread out over multiple ticks.
+ * <p>
+ * Each tick the scheduler processes the job with the highest priority till the time budget for that tick is used up.
+ * Jobs are processed in slices of {@link #SLICE_SIZE} blocks (one chunk layer) and the budget is checked after each slice.
+ * When a job completes within the budget the next job will continue in the same tick.
+ * <p>
+ * The tick task is only scheduled while there are jobs queued.
+ */
+public class EditScheduler {
+
+    public static final int SLICE_SIZE = 256;
+
+    private final Plugin plugin;
+    private long budget;
+    private BlockWriter writer = new BukkitBlockWriter();
+
+    private final PriorityQueue<EditJob> queue = new PriorityQueue<EditJob>(11, new Comparator<EditJob>() {
+        @Override
+        public int compare(EditJob job1, EditJob job2) {
+            int priority = job2.getPriority().compareTo(job1.getPriority());
+            if (priority != 0) {
+                return priority;
+            }
+            return job1.order < job2.order ? -1 : (job1.order == job2.order ? 0 : 1);
+        }
+    });
+    private long jobCount;
+    private BukkitTask task;
+
+    /**
+     * Create a new edit scheduler.
+     *
+     * @param plugin The plugin used to schedule the tick task.
+     * @param msPerTick The maximum amount of milliseconds to spend on editing each tick.
+     */
+    public EditScheduler(Plugin plugin, int msPerTick) {
+        this.plugin = plugin;
+        setTickBudget(msPerTick);
+    }
+
+
+    /**
+     * Queue a job to be processed.
+     *
+     * @param job The job to queue.
+     * @return The same job.
+     * @throws IllegalStateException when the job has already been submitted.
+     */
+    public <T extends EditJob> T submit(T job) {
+        if (job.scheduler != null || job.getStatus() != EditJob.Status.PENDING) {
+            throw new IllegalStateException("The job has already been submitted.");
+        }
+        job.scheduler = this;
+        job.order = jobCount++;
+        queue.add(job);
+        if (task == null) {
+            task = new BukkitRunnable() {
+                @Override
+                public void run() {
+                    tick();
+                }
+            }.runTaskTimer(plugin, 1, 1);
+        }
+        return job;
+    }
+
+    /**
+     * Fill the entire region with the specified material.
+     *
+     * @param region The region to fill.
+     * @param material The material to set.
+     * @param data The data value to set.
+     * @return The queued {@link FillJob}
+     */
+    public FillJob fill(Region region, Material material, byte data) {
+        return submit(new FillJob(region, material, data));
+    }
+
+    /**
+     * Replace all blocks in the region matching the filter with the specified material.
+     *
+     * @param region The region to replace blocks in.
+     * @param filter The materials to replace.
+     * @param material The material to set.
+     * @param data The data value to set.
+     * @return The queued {@link FillJob}
+     */
+    public FillJob replace(Region region, EnumSet<Material> filter, Material material, byte data) {
+        return submit(new FillJob(region, filter, material, data));
+    }
+
+    /**
+     * Set all blocks in the region to air.
+     *
+     * @param region The region to clear.
+     * @return The queued {@link FillJob}
+     */
+    public FillJob clear(Region region) {
+        return submit(new FillJob(region, Material.AIR, (byte)0));
+    }
+
+
+    /**
+     * Cancel the specified job.
+     * The cancel callback will be called directly.
+     *
+     * @param job The job to cancel.
+     * @return true if the job got cancelled and false if it wasn't queued.
+     */
+    public boolean cancel(EditJob job) {
+        if (job.isFinished() || !queue.remove(job)) {
+            return false;
+        }
+        job.setStatus(EditJob.Status.CANCELLED);
+        if (job.getCallback() != null) {
+            job.getCallback().onCancel(job);
+        }
+        stopIfIdle();
+        return true;
+    }
+
+    /**
+     * Cancel all queued jobs.
+     */
+    public void cancelAll() {
+        for (EditJob job : getJobs()) {
+            cancel(job);
+        }
+    }
+
+    void reprioritize(EditJob job, EditJob.Priority priority) {
+        boolean queued = queue.remove(job);
+        job.updatePriority(priority);
+        if (queued) {
+            queue.add(job);
+        }
+    }
+
+    /**
+     * Get a list with all queued jobs ordered by the order they will be processed in.
+     *
+     * @return List with queued jobs.
+     */
+    public List<EditJob> getJobs() {
+        List<EditJob> jobs = new ArrayList<EditJob>(queue);
+        Collections.sort(jobs, queue.comparator());
+        return jobs;
+    }
+
+
+    /**
+     * Get the maximum amount of milliseconds spend on editing each tick.
+     *
+     * @return Milliseconds per tick.
+     */
+    public int getTickBudget() {
+        return (int)(budget / 1000000L);
+    }
+
+    /**
+     * Set the maximum amount of milliseconds spend on editing each tick.
+     * At least one slice will always be processed each tick.
+     *
+     * @param msPerTick Milliseconds per tick.
+     */
+    public void setTickBudget(int msPerTick) {
+        budget = Math.max(0, msPerTick) * 1000000L;
+    }
+
+    public BlockWriter getWriter() {
+        return writer;
+    }
+
+    /**
+     * Set the writer used to write blocks to the world.
+     *
+     * @param writer The {@link BlockWriter}
+     */
+    public void setWriter(BlockWriter writer) {
+        this.writer = writer == null ? new BukkitBlockWriter() : writer;
+    }
+
+
+    /**
+     * Process the queued jobs till the budget is used up.
+     * This is called every tick while there are jobs queued.
+     */
+    public void tick() {
+        long deadline = System.nanoTime() + budget;
+        List<EditJob> completed = new ArrayList<EditJob>();
+
+        try {
+            EditJob job;
+            while ((job = queue.peek()) != null) {
+                job.setStatus(EditJob.Status.RUNNING);
+                boolean finished = false;
+                try {
+                    do {
+                        for (int i = 0; i < SLICE_SIZE; i++) {
+                            if (!job.process(writer)) {
+                                finished = true;
+                                break;
+                            }
+                        }
+                    } while (!finished && System.nanoTime() < deadline);
+                } catch (Exception e) {
+                    //Remove the failing job so it doesn't block the queue.
+                    queue.remove(job);
+                    job.fail(e);
+                    completed.add(job);
+                    plugin.getLogger().log(Level.SEVERE, "Edit job failed and has been removed from the queue.", e);
+                    if (System.nanoTime() >= deadline) {
+                        break;
+                    }
+                    continue;
+                }
+
+                if (finished) {
+                    queue.poll();
+                    job.setStatus(EditJob.Status.DONE);
+                    completed.add(job);
+                }
+                if (System.nanoTime() >= deadline) {
+                    break;
+                }
+            }
+
+            writer.flush();
+        } finally {
+            for (EditJob completedJob : completed) {
+                callback(completedJob);
+            }
+            stopIfIdle();
+        }
+    }
+
+    private void callback(EditJob job) {
+        if (job.getCallback() == null) {
+            return;
+        }
+        try {
+            if (job.getStatus() == EditJob.Status.FAILED) {
+                job.getCallback().onFail(job);
+            } else {
+                job.getCallback().onComplete(job);
+            }
+        } catch (Exception e) {
+            plugin.getLogger().log(Level.SEVERE, "Edit job callback threw an exception.", e);
+        }
+    }
+
+    private void stopIfIdle() {
+        if (queue.isEmpty() && task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Rojoss <http://jroossien.com>
+ * Copyright (c) 2016 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jroossien.boxx.util.cuboid.edit;
+
+import com.jroossien.boxx.util.cuboid.BlockCursor;
+import com.jroossien.boxx.util.cuboid.Region;
+import org.bukkit.Material;
+
+import java.util.EnumSet;
+
+/**
+ * {@link EditJob} that sets all blocks in a region to the same material.
+ * When a filter is specified only blocks matching the filter will be replaced.
+ */
+public class FillJob extends EditJob {
+
+    private final BlockCursor cursor;
+    private final EnumSet<Material> filter;
+    private final int typeId;
+    private final byte data;
+
+    /**
+     * Fill the entire region with the specified material.
+     *
+     * @param region The region to fill.
+     * @param material The material to set.
+     * @param data The data value to set.
+     */
+    public FillJob(Region region, Material material, byte data) {
+        this(region, null, material, data);
+    }
+
+    /**
+     * Replace all blocks in the region matching the filter with the specified material.
+     *
+     * @param region The region to replace blocks in.
+     * @param filter The materials to replace. (null or empty to replace all blocks)
+     * @param material The material to set.
+     * @param data The data value to set.
+     */
+    @SuppressWarnings("deprecation")
+    public FillJob(Region region, EnumSet<Material> filter, Material material, byte data) {
+        super(region.getWorld(), region.getVolume());
+        this.cursor = region.cursor();
+        this.filter = filter == null || filter.isEmpty() ? null : filter;
+        this.typeId = material.getId();
+        this.data = data;
+    }
+
+    @Override
+    protected boolean step(BlockWriter writer) {
+        if (!cursor.next()) {
+            return false;
+        }
+        if (filter == null || filter.contains(cursor.getType())) {
+            writer.setBlock(cursor.getWorld(), cursor.getX(), cursor.getY(), cursor.getZ(), typeId, data);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,359 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Rojoss <http://jroossien.com>
+ * Copyright (c) 2016 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jroossien.boxx.util.cuboid.edit;
+
+import com.jroossien.boxx.util.cuboid.Cuboid;
+import com.jroossien.boxx.util.cuboid.CuboidCursor;
+import org.bukkit.Bukkit;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.World;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compact binary snapshot of all blocks in a cuboid.
+ * <p>
+ * The blocks are stored in the order of the {@link CuboidCursor} as runs of palette indexes.
+ * Each palette entry is a block id combined with its data value (id | data &lt;&lt; 12)
+ * and each run is written as two varints (palette index and run length).
+ * Large areas of the same block like air or stone only take a couple bytes this way.
+ * <p>
+ * File layout: magic, version, flags, followed by the (optionally gzipped) body with
+ * the world name, bounds, palette and runs.
+ * <p>
+ * Restoring is done with a {@link EditJob} so it can be spread over multiple ticks with the {@link EditScheduler}.
+ */
+public class RegionSnapshot {
+
+    private static final int MAGIC = 0x42585853;
+    private static final byte VERSION = 1;
+    private static final byte FLAG_GZIP = 1;
+
+    private final String world;
+    private final int minX;
+    private final int minY;
+    private final int minZ;
+    private final int maxX;
+    private final int maxY;
+    private final int maxZ;
+    private final int[] palette;
+    private final byte[] runs;
+
+    private RegionSnapshot(String world, int minX, int minY, int minZ, int maxX, int maxY, int maxZ, int[] palette, byte[] runs) {
+        this.world = world;
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.maxZ = maxZ;
+        this.palette = palette;
+        this.runs = runs;
+    }
+
+
+    /**
+     * Capture all blocks in the cuboid.
+     * This must be called from the main thread.
+     * Each chunk is read once through a {@link ChunkSnapshot}.
+     *
+     * @param cuboid The cuboid to capture.
+     * @return The captured {@link RegionSnapshot}
+     */
+    @SuppressWarnings("deprecation")
+    public static RegionSnapshot capture(Cuboid cuboid) {
+        World world = cuboid.getWorld();
+        int[] paletteIndex = new int[1 << 16];
+        Arrays.fill(paletteIndex, -1);
+        int[] palette = new int[16];
+        int paletteSize = 0;
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int prevIndex = -1;
+        int run = 0;
+
+        CuboidCursor cursor = cuboid.cursor();
+        ChunkSnapshot snapshot = null;
+        while (cursor.next()) {
+            int x = cursor.getX();
+            int y = cursor.getY();
+            int z = cursor.getZ();
+            if (snapshot == null || snapshot.getX() != x >> 4 || snapshot.getZ() != z >> 4) {
+                snapshot = world.getChunkAt(x >> 4, z >> 4).getChunkSnapshot(false, false, false);
+            }
+
+            int state = 0;
+            if (y >= 0 && y < 256) {
+                state = (snapshot.getBlockTypeId(x & 15, y, z & 15) & 0xFFF) | (snapshot.getBlockData(x & 15, y, z & 15) << 12);
+            }
+            int index = paletteIndex[state];
+            if (index < 0) {
+                if (paletteSize == palette.length) {
+                    palette = Arrays.copyOf(palette, paletteSize * 2);
+                }
+                index = paletteSize;
+                palette[paletteSize++] = state;
+                paletteIndex[state] = index;
+            }
+
+            if (index == prevIndex) {
+                run++;
+            } else {
+                if (run > 0) {
+                    writeVarInt(out, prevIndex);
+                    writeVarInt(out, run);
+                }
+                prevIndex = index;
+                run = 1;
+            }
+        }
+        if (run > 0) {
+            writeVarInt(out, prevIndex);
+            writeVarInt(out, run);
+        }
+
+        return new RegionSnapshot(cuboid.getWorldName(), cuboid.getMinX(), cuboid.getMinY(), cuboid.getMinZ(), cuboid.getMaxX(), cuboid.getMaxY(), cuboid.getMaxZ(),
+                Arrays.copyOf(palette, paletteSize), out.toByteArray());
+    }
+
+
+    /**
+     * Save the snapshot to a file.
+     *
+     * @param file The file to save to. (Will be overwritten)
+     * @param compress Whether the data should be gzipped.
+     * @throws IOException when the file can't be written.
+     */
+    public void save(File file, boolean compress) throws IOException {
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            OutputStream stream = new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16);
+            DataOutputStream header = new DataOutputStream(stream);
+            header.writeInt(MAGIC);
+            header.writeByte(VERSION);
+            header.writeByte(compress ? FLAG_GZIP : 0);
+            header.flush();
+
+            DataOutputStream body = compress ? new DataOutputStream(new GZIPOutputStream(stream, 1 << 16)) : header;
+            body.writeUTF(world);
+            body.writeInt(minX);
+            body.writeInt(minY);
+            body.writeInt(minZ);
+            body.writeInt(maxX);
+            body.writeInt(maxY);
+            body.writeInt(maxZ);
+            body.writeInt(palette.length);
+            for (int state : palette) {
+                body.writeInt(state);
+            }
+            body.writeInt(runs.length);
+            body.write(runs);
+            body.close();
+        }
+    }
+
+    /**
+     * Load a snapshot from a file.
+     * Uncompressed files are memory mapped.
+     *
+     * @param file The file to load.
+     * @return The loaded {@link RegionSnapshot}
+     * @throws IOException when the file can't be read or isn't a valid snapshot.
+     */
+    public static RegionSnapshot load(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 6 || buffer.getInt() != MAGIC) {
+                throw new IOException("'" + file.getName() + "' is not a region snapshot.");
+            }
+            byte version = buffer.get();
+            if (version != VERSION) {
+                throw new IOException("Unsupported region snapshot version " + version + ".");
+            }
+            byte flags = buffer.get();
+
+            DataInput body;
+            if ((flags & FLAG_GZIP) != 0) {
+                channel.position(buffer.position());
+                body = new DataInputStream(new GZIPInputStream(Channels.newInputStream(channel), 1 << 16));
+            } else {
+                body = new BufferInput(buffer);
+            }
+
+            String world = body.readUTF();
+            int minX = body.readInt();
+            int minY = body.readInt();
+            int minZ = body.readInt();
+            int maxX = body.readInt();
+            int maxY = body.readInt();
+            int maxZ = body.readInt();
+            int[] palette = new int[body.readInt()];
+            for (int i = 0; i < palette.length; i++) {
+                palette[i] = body.readInt();
+            }
+            byte[] runs = new byte[body.readInt()];
+            body.readFully(runs);
+            return new RegionSnapshot(world, minX, minY, minZ, maxX, maxY, maxZ, palette, runs);
+        }
+    }
+
+
+    /**
+     * Create a job that restores all blocks of this snapshot at the original location.
+     * Submit the job to the {@link EditScheduler} to restore it over multiple ticks.
+     *
+     * @return The restore {@link EditJob}
+     * @throws IllegalStateException when the world of the snapshot is not loaded.
+     */
+    public EditJob restore() {
+        World world = Bukkit.getWorld(this.world);
+        if (world == null) {
+            throw new IllegalStateException("'" + this.world + "' is not loaded or not a valid world.");
+        }
+        return new RestoreJob(world);
+    }
+
+    /**
+     * Get the cuboid this snapshot was captured from.
+     *
+     * @return New cuboid with the bounds of the snapshot.
+     */
+    public Cuboid getCuboid() {
+        return new Cuboid(world, minX, minY, minZ, maxX, maxY, maxZ);
+    }
+
+    public long getVolume() {
+        return (long)(maxX - minX + 1) * (maxY - minY + 1) * (maxZ - minZ + 1);
+    }
+
+    /**
+     * Get the amount of different blocks in the snapshot.
+     *
+     * @return The palette size.
+     */
+    public int getPaletteSize() {
+        return palette.length;
+    }
+
+    /**
+     * Get the size of the encoded block data in bytes. (Without header and compression)
+     *
+     * @return Size in bytes.
+     */
+    public int getDataSize() {
+        return runs.length + palette.length * 4;
+    }
+
+
+    private static void writeVarInt(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+
+
+    private class RestoreJob extends EditJob {
+        private final CuboidCursor cursor;
+        private int offset;
+        private int typeId;
+        private byte data;
+        private int remaining;
+
+        private RestoreJob(World world) {
+            super(world, getVolume());
+            cursor = new CuboidCursor(world, minX, minY, minZ, maxX, maxY, maxZ, null);
+        }
+
+        @Override
+        protected boolean step(BlockWriter writer) {
+            if (remaining == 0) {
+                if (offset >= runs.length) {
+                    return false;
+                }
+                int state = palette[readVarInt()];
+                remaining = readVarInt();
+                typeId = state & 0xFFF;
+                data = (byte)(state >>> 12);
+            }
+            if (!cursor.next()) {
+                return false;
+            }
+            writer.setBlock(getWorld(), cursor.getX(), cursor.getY(), cursor.getZ(), typeId, data);
+            remaining--;
+            return true;
+        }
+
+        private int readVarInt() {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = runs[offset++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+    }
+
+
+    /**
+     * DataInput reading from a (memory mapped) buffer.
+     */
+    private static class BufferInput extends DataInputStream {
+        private BufferInput(final ByteBuffer buffer) {
+            super(new InputStream() {
+                @Override
+                public int read() {
+                    return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+                }
+
+                @Override
+                public int read(byte[] bytes, int off, int len) {
+                    if (!buffer.hasRemaining()) {
+                        return -1;
+                    }
+                    len = Math.min(len, buffer.remaining());
+                    buffer.get(bytes, off, len);
+                    return len;
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Rojoss <http://jroossien.com>
+ * Copyright (c) 2016 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jroossien.boxx.util.cuboid.scan;
+
+import com.jroossien.boxx.Boxx;
+import com.jroossien.boxx.util.cuboid.Cuboid;
+import com.jroossien.boxx.util.cuboid.LongCoordSet;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.plugin.IllegalPluginAccessException;
+import org.bukkit.scheduler.BukkitRunnable;
+
+import java.util.EnumSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Scans the blocks in a cuboid off the main thread.
+ * <p>
+ * The chunks the cuboid intersects are captured as {@link ChunkSnapshot}s on the main thread.
+ * After that the snapshots are scanned in parallel on a fork-join worker pool.
+ * The result is available through the returned future and the callback is called on the main thread.
+ * When the scan fails the future throws the exception and {@link ScanCallback#onError(Throwable)} is called instead.
+ * Callbacks are skipped when the plugin got disabled before the scan finished.
+ * <p>
+ * The plugin is compiled for Java 7 so there is no CompletableFuture to chain on.
+ * The returned {@link Future} can be used to block on or cancel the scan and the {@link ScanCallback} is used to continue with the result.
+ * <p>
+ * Usage:
+ * <pre>
+ * CuboidScanner.scan(cuboid, EnumSet.of(Material.CHEST), new ScanCallback() {
+ *     public void onComplete(ScanResult result) {
+ *         //result.getMatches() has all chest coordinates.
+ *     }
+ * });
+ * </pre>
+ */
+public class CuboidScanner {
+
+    private static ForkJoinPool pool;
+
+    /**
+     * Scan the cuboid and count the blocks per material.
+     * This must be called from the main thread.
+     *
+     * @param cuboid The cuboid to scan.
+     * @param callback The callback that will be called on the main thread when the scan is done. (May be null)
+     * @return Future with the {@link ScanResult}
+     */
+    public static Future<ScanResult> scan(Cuboid cuboid, ScanCallback callback) {
+        return scan(cuboid, null, callback);
+    }
+
+    /**
+     * Scan the cuboid and collect the coordinates of all blocks matching the filter.
+     * The result will also contain the amount of blocks per material for all blocks in the cuboid.
+     * This must be called from the main thread.
+     * Chunks that aren't loaded will be loaded to capture them.
+     *
+     * @param cuboid The cuboid to scan.
+     * @param filter The materials to collect the coordinates of. (null to only count blocks)
+     * @param callback The callback that will be called on the main thread when the scan is done. (May be null)
+     * @return Future with the {@link ScanResult}
+     */
+    @SuppressWarnings("deprecation")
+    public static Future<ScanResult> scan(Cuboid cuboid, EnumSet<Material> filter, ScanCallback callback) {
+        World world = cuboid.getWorld();
+        int minChunkX = cuboid.getMinX() >> 4;
+        int minChunkZ = cuboid.getMinZ() >> 4;
+        int maxChunkX = cuboid.getMaxX() >> 4;
+        int maxChunkZ = cuboid.getMaxZ() >> 4;
+
+        ChunkSnapshot[] snapshots = new ChunkSnapshot[(maxChunkX - minChunkX + 1) * (maxChunkZ - minChunkZ + 1)];
+        int i = 0;
+        for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+            for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                snapshots[i++] = world.getChunkAt(chunkX, chunkZ).getChunkSnapshot(false, false, false);
+            }
+        }
+
+        boolean[] matches = null;
+        if (filter != null && !filter.isEmpty()) {
+            matches = new boolean[ScanResult.MAX_ID];
+            for (Material material : filter) {
+                if (material.isBlock() && material.getId() < ScanResult.MAX_ID) {
+                    matches[material.getId()] = true;
+                }
+            }
+        }
+
+        return getPool().submit(new ScanTask(snapshots, 0, snapshots.length, matches, callback,
+                cuboid.getMinX(), cuboid.getMinY(), cuboid.getMinZ(), cuboid.getMaxX(), cuboid.getMaxY(), cuboid.getMaxZ()));
+    }
+
+    private static synchronized ForkJoinPool getPool() {
+        if (pool == null) {
+            pool = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+        }
+        return pool;
+    }
+
+    /**
+     * Stop the worker pool and cancel all running scans.
+     * This is called when the plugin gets disabled, a new pool is created on the next scan.
+     */
+    public static synchronized void shutdown() {
+        if (pool != null) {
+            pool.shutdownNow();
+            pool = null;
+        }
+    }
+
+
+    private static class ScanTask extends RecursiveTask<ScanResult> {
+        private final ChunkSnapshot[] snapshots;
+        private final int from;
+        private final int to;
+        private final boolean[] matches;
+        private final ScanCallback callback;
+        private final int minX, minY, minZ, maxX, maxY, maxZ;
+
+        private ScanTask(ChunkSnapshot[] snapshots, int from, int to, boolean[] matches, ScanCallback callback, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+            this.snapshots = snapshots;
+            this.from = from;
+            this.to = to;
+            this.matches = matches;
+            this.callback = callback;
+            this.minX = minX;
+            this.minY = Math.max(0, minY);
+            this.minZ = minZ;
+            this.maxX = maxX;
+            this.maxY = Math.min(255, maxY);
+            this.maxZ = maxZ;
+        }
+
+        @Override
+        protected ScanResult compute() {
+            final ScanResult result;
+            try {
+                if (to - from <= 1) {
+                    result = scan(snapshots[from]);
+                } else {
+                    int mid = (from + to) >>> 1;
+                    ScanTask left = new ScanTask(snapshots, from, mid, matches, null, minX, minY, minZ, maxX, maxY, maxZ);
+                    ScanTask right = new ScanTask(snapshots, mid, to, matches, null, minX, minY, minZ, maxX, maxY, maxZ);
+                    left.fork();
+                    ScanResult rightResult = right.compute();
+                    result = ScanResult.merge(left.join(), rightResult);
+                }
+            } catch (final RuntimeException | Error e) {
+                //Only the root task has a callback, the exception is rethrown so the future completes with it too.
+                if (callback != null) {
+                    runSync(new BukkitRunnable() {
+                        @Override
+                        public void run() {
+                            callback.onError(e);
+                        }
+                    });
+                }
+                throw e;
+            }
+
+            if (callback != null) {
+                runSync(new BukkitRunnable() {
+                    @Override
+                    public void run() {
+                        callback.onComplete(result);
+                    }
+                });
+            }
+            return result;
+        }
+
+        private void runSync(BukkitRunnable runnable) {
+            Boxx plugin = Boxx.get();
+            if (plugin == null || !plugin.isEnabled()) {
+                return;
+            }
+            try {
+                runnable.runTask(plugin);
+            } catch (IllegalPluginAccessException e) {
+                //Plugin got disabled while scanning.
+            }
+        }
+
+        @SuppressWarnings("deprecation")
+        private ScanResult scan(ChunkSnapshot snapshot) {
+            int[] counts = new int[ScanResult.MAX_ID];
+            LongCoordSet coords = new LongCoordSet();
+
+            int baseX = snapshot.getX() << 4;
+            int baseZ = snapshot.getZ() << 4;
+            int chunkMinX = Math.max(minX, baseX) - baseX;
+            int chunkMaxX = Math.min(maxX, baseX + 15) - baseX;
+            int chunkMinZ = Math.max(minZ, baseZ) - baseZ;
+            int chunkMaxZ = Math.min(maxZ, baseZ + 15) - baseZ;
+
+            for (int y = minY; y <= maxY; y++) {
+                if (snapshot.isSectionEmpty(y >> 4)) {
+                    counts[0] += (chunkMaxX - chunkMinX + 1) * (chunkMaxZ - chunkMinZ + 1);
+                    if (matches != null && matches[0]) {
+                        for (int z = chunkMinZ; z <= chunkMaxZ; z++) {
+                            for (int x = chunkMinX; x <= chunkMaxX; x++) {
+                                coords.add(baseX + x, y, baseZ + z);
+                            }
+                        }
+                    }
+                    continue;
+                }
+                for (int z = chunkMinZ; z <= chunkMaxZ; z++) {
+                    for (int x = chunkMinX; x <= chunkMaxX; x++) {
+                        int id = snapshot.getBlockTypeId(x, y, z);
+                        counts[id]++;
+                        if (matches != null && matches[id]) {
+                            coords.add(baseX + x, y, baseZ + z);
+                        }
+                    }
+                }
+            }
+            return new ScanResult(counts, coords);
+        }
+    }
+}
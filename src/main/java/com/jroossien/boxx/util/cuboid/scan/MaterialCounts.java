@@ -0,0 +1,152 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Rojoss <http://jroossien.com>
+ * Copyright (c) 2016 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jroossien.boxx.util.cuboid.scan;
+
+import com.jroossien.boxx.util.cuboid.Cuboid;
+import org.bukkit.Material;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+
+/**
+ * Block counts per material for a cuboid tracked by the {@link MaterialTracker}.
+ * <p>
+ * The counts are seeded with a {@link CuboidScanner} scan and then updated from block events.
+ * Querying the counts never touches the world.
+ * Until the first scan is done ({@link #isReady()}) the counts only contain the changes since tracking started.
+ */
+public class MaterialCounts {
+
+    private final Cuboid cuboid;
+    private long volume;
+    final int[] counts = new int[ScanResult.MAX_ID];
+    boolean ready;
+    int scan;
+
+    MaterialCounts(Cuboid cuboid) {
+        this.cuboid = cuboid;
+        reset();
+    }
+
+    /**
+     * Clear the counts before a new scan.
+     */
+    void reset() {
+        //Same height range as the scanner.
+        int height = Math.max(0, Math.min(255, cuboid.getMaxY()) - Math.max(0, cuboid.getMinY()) + 1);
+        volume = (long)cuboid.getWidth() * height * cuboid.getLength();
+        Arrays.fill(counts, 0);
+        ready = false;
+        scan++;
+    }
+
+
+    /**
+     * Get the cuboid these counts are for.
+     *
+     * @return The tracked cuboid.
+     */
+    public Cuboid getCuboid() {
+        return cuboid;
+    }
+
+    /**
+     * Check whether the initial scan has completed.
+     * Before that the counts are incomplete.
+     *
+     * @return true when the counts are complete.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Get the total amount of blocks in the cuboid.
+     * Only blocks within the world height are counted.
+     *
+     * @return The volume of the cuboid.
+     */
+    public long getVolume() {
+        return volume;
+    }
+
+    /**
+     * Get the amount of blocks with the specified material.
+     *
+     * @param material The material to get the count of.
+     * @return Amount of blocks.
+     */
+    @SuppressWarnings("deprecation")
+    public int getCount(Material material) {
+        int id = material.getId();
+        return id >= 0 && id < counts.length ? counts[id] : 0;
+    }
+
+    /**
+     * Get the amount of blocks with any of the specified materials.
+     *
+     * @param materials The materials to get the count of.
+     * @return Amount of blocks.
+     */
+    public long getCount(EnumSet<Material> materials) {
+        long count = 0;
+        for (Material material : materials) {
+            count += getCount(material);
+        }
+        return count;
+    }
+
+    /**
+     * Get the fraction of the cuboid that consists of the specified material.
+     * For example 0.8 when 80% of the cuboid is wool.
+     *
+     * @param material The material to get the fraction of.
+     * @return Fraction between 0 and 1.
+     */
+    public double getFraction(Material material) {
+        return volume == 0 ? 0 : (double)getCount(material) / volume;
+    }
+
+    /**
+     * Get the fraction of the cuboid that consists of any of the specified materials.
+     *
+     * @param materials The materials to get the fraction of.
+     * @return Fraction between 0 and 1.
+     */
+    public double getFraction(EnumSet<Material> materials) {
+        return volume == 0 ? 0 : (double)getCount(materials) / volume;
+    }
+
+    /**
+     * Update the counts for a block that changed from one type to another.
+     */
+    void change(int fromId, int toId) {
+        if (fromId != toId && fromId >= 0 && fromId < counts.length && toId >= 0 && toId < counts.length) {
+            counts[fromId]--;
+            counts[toId]++;
+        }
+    }
+}
@@ -0,0 +1,357 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Rojoss <http://jroossien.com>
+ * Copyright (c) 2016 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jroossien.boxx.util.cuboid.scan;
+
+import com.jroossien.boxx.util.cuboid.Cuboid;
+import com.jroossien.boxx.util.cuboid.CuboidIndex;
+import com.jroossien.boxx.util.cuboid.LongCoordSet;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.block.BlockState;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.*;
+import org.bukkit.event.entity.EntityChangeBlockEvent;
+import org.bukkit.event.entity.EntityExplodeEvent;
+
+import java.util.*;
+
+/**
+ * Keeps track of the amount of blocks per material in registered cuboids.
+ * <p>
+ * When a cuboid is tracked it's scanned once with the {@link CuboidScanner}.
+ * After that the {@link MaterialCounts} are updated from block events (place, break, burn, explode, pistons, fluids,
+ * entities changing blocks, forming, spreading, growing, fading and leaves decaying) so game logic can check the
+ * counts without scanning the world again.
+ * <p>
+ * The cuboids for an event are looked up with a {@link CuboidIndex} and updating the counts is O(1) per cuboid.
+ * Changes that don't fire events (for example blocks set by other plugins or the edit scheduler) are not tracked,
+ * use {@link #rescan(Cuboid)} after making those changes.
+ */
+public class MaterialTracker implements Listener {
+
+    private static final int PISTON_EXTENSION = 34;
+
+    private final CuboidIndex index = new CuboidIndex();
+    private final Map<Cuboid, MaterialCounts> tracked = new IdentityHashMap<Cuboid, MaterialCounts>();
+
+    //Reused for every event to avoid allocations.
+    private final List<Cuboid> found = new ArrayList<Cuboid>();
+
+
+    /**
+     * Start tracking the block counts of a cuboid.
+     * The returned counts will be ready once the initial scan is done.
+     * When the cuboid is modified you have to call {@link #rescan(Cuboid)}.
+     *
+     * @param cuboid The cuboid to track.
+     * @return The {@link MaterialCounts} for the cuboid. (The existing counts if it was already tracked)
+     */
+    public MaterialCounts track(Cuboid cuboid) {
+        MaterialCounts counts = tracked.get(cuboid);
+        if (counts != null) {
+            return counts;
+        }
+        counts = new MaterialCounts(cuboid);
+        tracked.put(cuboid, counts);
+        index.add(cuboid);
+        scan(counts);
+        return counts;
+    }
+
+    /**
+     * Stop tracking the block counts of a cuboid.
+     *
+     * @param cuboid The cuboid to stop tracking.
+     * @return true if the cuboid was tracked.
+     */
+    public boolean untrack(Cuboid cuboid) {
+        if (tracked.remove(cuboid) == null) {
+            return false;
+        }
+        index.remove(cuboid);
+        return true;
+    }
+
+    /**
+     * Scan a tracked cuboid again.
+     * Use this when the cuboid has been modified or when blocks have been changed without firing events.
+     * The counts won't be ready till the scan is done.
+     *
+     * @param cuboid The tracked cuboid.
+     * @return The {@link MaterialCounts} for the cuboid or {@code null} when the cuboid isn't tracked.
+     */
+    public MaterialCounts rescan(Cuboid cuboid) {
+        MaterialCounts counts = tracked.get(cuboid);
+        if (counts == null) {
+            return null;
+        }
+        counts.reset();
+        index.update(cuboid);
+        scan(counts);
+        return counts;
+    }
+
+    /**
+     * Get the counts of a tracked cuboid.
+     *
+     * @param cuboid The tracked cuboid.
+     * @return The {@link MaterialCounts} for the cuboid or {@code null} when the cuboid isn't tracked.
+     */
+    public MaterialCounts getCounts(Cuboid cuboid) {
+        return tracked.get(cuboid);
+    }
+
+    /**
+     * Get all cuboids that are being tracked.
+     *
+     * @return Collection with tracked cuboids.
+     */
+    public Collection<Cuboid> getTracked() {
+        return Collections.unmodifiableCollection(tracked.keySet());
+    }
+
+    private void scan(final MaterialCounts counts) {
+        final int scan = counts.scan;
+        CuboidScanner.scan(counts.getCuboid(), new ScanCallback() {
+            @Override
+            public void onComplete(ScanResult result) {
+                //Ignore the result when the cuboid was untracked or scanned again in the meantime.
+                if (tracked.get(counts.getCuboid()) != counts || counts.scan != scan) {
+                    return;
+                }
+                //Changes made after the snapshots were taken are already in the counts.
+                int[] scanned = result.getCounts();
+                for (int id = 0; id < scanned.length; id++) {
+                    counts.counts[id] += scanned[id];
+                }
+                counts.ready = true;
+            }
+        });
+    }
+
+
+    @SuppressWarnings("deprecation")
+    private void change(Block block, int toId) {
+        change(block.getWorld(), block.getX(), block.getY(), block.getZ(), block.getTypeId(), toId);
+    }
+
+    private void change(World world, int x, int y, int z, int fromId, int toId) {
+        if (fromId == toId) {
+            return;
+        }
+        found.clear();
+        if (index.getContaining(world.getName(), x, y, z, found) == 0) {
+            return;
+        }
+        for (Cuboid cuboid : found) {
+            tracked.get(cuboid).change(fromId, toId);
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private void changeState(Block block, BlockState newState) {
+        change(block, newState.getTypeId());
+    }
+
+
+    @SuppressWarnings("deprecation")
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    private void onPlace(BlockPlaceEvent event) {
+        if (tracked.isEmpty()) {
+            return;
+        }
+        //The block has already been placed when the event is called.
+        if (event instanceof BlockMultiPlaceEvent) {
+            for (BlockState state : ((BlockMultiPlaceEvent)event).getReplacedBlockStates()) {
+                change(state.getWorld(), state.getX(), state.getY(), state.getZ(), state.getTypeId(), state.getBlock().getTypeId());
+            }
+        } else {
+            BlockState replaced = event.getBlockReplacedState();
+            Block block = event.getBlock();
+            change(block.getWorld(), block.getX(), block.getY(), block.getZ(), replaced.getTypeId(), block.getTypeId());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    private void onBreak(BlockBreakEvent event) {
+        if (!tracked.isEmpty()) {
+            change(event.getBlock(), 0);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    private void onBurn(BlockBurnEvent event) {
+        if (!tracked.isEmpty()) {
+            change(event.getBlock(), 0);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    private void onDecay(LeavesDecayEvent event) {
+        if (!tracked.isEmpty()) {
+            change(event.getBlock(), 0);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    private void onEntityExplode(EntityExplodeEvent event) {
+        if (!tracked.isEmpty()) {
+            for (Block block : event.blockList()) {
+                change(block, 0);
+            }
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    private void onBlockExplode(BlockExplodeEvent event) {
+        if (!tracked.isEmpty()) {
+            for (Block block : event.blockList()) {
+                change(block, 0);
+            }
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    private void onEntityChangeBlock(EntityChangeBlockEvent event) {
+        if (!tracked.isEmpty()) {
+            change(event.getBlock(), event.getTo().getId());
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    private void onFlow(BlockFromToEvent event) {
+        if (tracked.isEmpty()) {
+            return;
+        }
+        Block from = event.getBlock();
+        int fromId = from.getTypeId();
+        if (fromId == Material.DRAGON_EGG.getId()) {
+            //Dragon eggs teleport.
+            change(from, 0);
+            change(event.getToBlock(), fromId);
+        } else if (fromId == Material.STATIONARY_WATER.getId() || fromId == Material.STATIONARY_LAVA.getId()) {
+            //Fluids always spread as flowing fluid.
+            change(event.getToBlock(), fromId - 1);
+        } else {
+            change(event.getToBlock(), fromId);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    private void onForm(BlockFormEvent event) {
+        //Also handles BlockSpreadEvent which extends BlockFormEvent.
+        if (!tracked.isEmpty()) {
+            changeState(event.getBlock(), event.getNewState());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    private void onGrow(BlockGrowEvent event) {
+        if (!tracked.isEmpty()) {
+            changeState(event.getBlock(), event.getNewState());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    private void onFade(BlockFadeEvent event) {
+        if (!tracked.isEmpty()) {
+            changeState(event.getBlock(), event.getNewState());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    private void onPistonExtend(BlockPistonExtendEvent event) {
+        if (!tracked.isEmpty()) {
+            movePiston(event.getBlock(), event.getBlocks(), true);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    private void onPistonRetract(BlockPistonRetractEvent event) {
+        if (!tracked.isEmpty()) {
+            movePiston(event.getBlock(), event.getBlocks(), false);
+        }
+    }
+
+    /**
+     * Calculate the final block types after a piston moved and update the counts.
+     * The direction is taken from the piston data. (Extending moves blocks away from the piston and retracting towards it)
+     */
+    @SuppressWarnings("deprecation")
+    private void movePiston(Block piston, List<Block> blocks, boolean extend) {
+        BlockFace facing = getPistonFacing(piston.getData());
+        int dirX = extend ? facing.getModX() : -facing.getModX();
+        int dirY = extend ? facing.getModY() : -facing.getModY();
+        int dirZ = extend ? facing.getModZ() : -facing.getModZ();
+
+        //The new type for each position that changes.
+        Map<Long, Integer> types = new LinkedHashMap<Long, Integer>();
+        for (Block block : blocks) {
+            types.put(LongCoordSet.pack(block.getX(), block.getY(), block.getZ()), 0);
+        }
+        for (Block block : blocks) {
+            types.put(LongCoordSet.pack(block.getX() + dirX, block.getY() + dirY, block.getZ() + dirZ), block.getTypeId());
+        }
+        long head = LongCoordSet.pack(piston.getX() + facing.getModX(), piston.getY() + facing.getModY(), piston.getZ() + facing.getModZ());
+        if (extend) {
+            types.put(head, PISTON_EXTENSION);
+        } else if (!types.containsKey(head)) {
+            types.put(head, 0);
+        }
+
+        World world = piston.getWorld();
+        for (Map.Entry<Long, Integer> entry : types.entrySet()) {
+            long packed = entry.getKey();
+            int x = LongCoordSet.unpackX(packed);
+            int y = LongCoordSet.unpackY(packed);
+            int z = LongCoordSet.unpackZ(packed);
+            change(world, x, y, z, world.getBlockTypeIdAt(x, y, z), entry.getValue());
+        }
+    }
+
+    private static BlockFace getPistonFacing(byte data) {
+        switch (data & 7) {
+            case 0:
+                return BlockFace.DOWN;
+            case 1:
+                return BlockFace.UP;
+            case 2:
+                return BlockFace.NORTH;
+            case 3:
+                return BlockFace.SOUTH;
+            case 4:
+                return BlockFace.WEST;
+            default:
+                return BlockFace.EAST;
+        }
+    }
+}
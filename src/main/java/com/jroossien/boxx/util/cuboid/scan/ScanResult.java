@@ -0,0 +1,125 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Rojoss <http://jroossien.com>
+ * Copyright (c) 2016 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.jroossien.boxx.util.cuboid.scan;
+
+import com.jroossien.boxx.util.cuboid.LongCoordSet;
+import org.bukkit.Material;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Result of a {@link CuboidScanner} scan.
+ * Contains a histogram with the amount of blocks per material and the packed coordinates of the blocks matching the filter.
+ */
+public class ScanResult {
+
+    static final int MAX_ID = 4096;
+
+    private final int[] counts;
+    private final LongCoordSet matches;
+
+    ScanResult(int[] counts, LongCoordSet matches) {
+        this.counts = counts;
+        this.matches = matches;
+    }
+
+    /**
+     * Get the amount of blocks with the specified material.
+     *
+     * @param material The material to get the count of.
+     * @return Amount of blocks.
+     */
+    @SuppressWarnings("deprecation")
+    public int getCount(Material material) {
+        int id = material.getId();
+        return id >= 0 && id < counts.length ? counts[id] : 0;
+    }
+
+    /**
+     * Get the total amount of blocks scanned.
+     *
+     * @return Amount of blocks.
+     */
+    public long getTotal() {
+        long total = 0;
+        for (int count : counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Get the amount of blocks for each material that was found.
+     *
+     * @return Map with materials and their block count.
+     */
+    @SuppressWarnings("deprecation")
+    public Map<Material, Integer> getHistogram() {
+        Map<Material, Integer> histogram = new EnumMap<Material, Integer>(Material.class);
+        for (int id = 0; id < counts.length; id++) {
+            if (counts[id] > 0) {
+                Material material = Material.getMaterial(id);
+                if (material != null) {
+                    histogram.put(material, counts[id]);
+                }
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * Get the packed coordinates of all blocks that matched the filter.
+     * When the scan had no filter this set is empty.
+     *
+     * @return {@link LongCoordSet} with the matching coordinates.
+     */
+    public LongCoordSet getMatches() {
+        return matches;
+    }
+
+    /** The raw counts indexed by block type id. */
+    int[] getCounts() {
+        return counts;
+    }
+
+    /**
+     * Merge two results together.
+     * The largest result is reused so the returned result will be one of the arguments.
+     */
+    static ScanResult merge(ScanResult first, ScanResult second) {
+        if (second.matches.size() > first.matches.size()) {
+            ScanResult swap = first;
+            first = second;
+            second = swap;
+        }
+        for (int id = 0; id < MAX_ID; id++) {
+            first.counts[id] += second.counts[id];
+        }
+        first.matches.addAll(second.matches);
+        return first;
+    }
+}